@@ -2,11 +2,24 @@ package uk.gov.dwp.uc.pairtest;
 
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.TicketCounts;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.events.PurchaseCountingEvent;
+import uk.gov.dwp.uc.pairtest.events.PurchasePaymentEvent;
+import uk.gov.dwp.uc.pairtest.events.PurchasePricingEvent;
+import uk.gov.dwp.uc.pairtest.events.PurchaseStageEvent;
+import uk.gov.dwp.uc.pairtest.events.PurchaseValidationEvent;
+import uk.gov.dwp.uc.pairtest.events.SeatReservationEvent;
+import uk.gov.dwp.uc.pairtest.exception.GatewayTimeoutException;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseNotCompletedException;
 import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelper;
+import uk.gov.dwp.uc.pairtest.holds.SeatHold;
+import uk.gov.dwp.uc.pairtest.holds.SeatHoldService;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.refunds.RefundService;
 
-import java.util.Map;
+import java.util.function.Supplier;
 
 public class TicketServiceImpl implements TicketService {
     /**
@@ -17,27 +30,214 @@ public class TicketServiceImpl implements TicketService {
     private SeatReservationService seatReservationService;
     private TicketPriceService ticketPriceService;
     private TicketTypeRequestHelper ticketTypeRequestHelper;
+    private AccountPurchaseLimiter accountPurchaseLimiter;
+    private SeatHoldService seatHoldService;
+    private RefundService refundService;
+
+    /**
+     * The work of each stage of a purchase, held in fields so that running a stage does not
+     * allocate a lambda capturing its arguments.
+     */
+    private final Stage<TicketTypeRequest[], Void> validation = (accountId, ticketTypeRequests, unused) -> {
+        validateAccountId(accountId);
+        ticketTypeRequestHelper.validateTicketTypes(ticketTypeRequests);
+        return null;
+    };
+    private final Stage<TicketTypeRequest[], TicketCounts> counting = (accountId, ticketTypeRequests, unused) ->
+            ticketTypeRequestHelper.getTicketRequestCounts(ticketTypeRequests);
+    private final Stage<TicketCounts, Integer> pricing = (accountId, ticketCounts, unused) ->
+            calculateTicketRequestTotalPrice(ticketCounts);
+    private final Stage<Void, Void> payment = (accountId, unused, totalPrice) -> {
+        ticketPaymentService.makePayment(accountId, totalPrice);
+        return null;
+    };
+    private final Stage<Void, Void> reservation = (accountId, unused, totalSeats) -> {
+        seatReservationService.reserveSeat(accountId, totalSeats);
+        return null;
+    };
+
+
+    @FunctionalInterface
+    private interface Stage<A, R> {
+        R run(Long accountId, A argument, int amount);
+    }
+
+
+    public TicketServiceImpl() {
+    }
+
+
+    public TicketServiceImpl(TicketPaymentService ticketPaymentService,
+                             SeatReservationService seatReservationService,
+                             TicketPriceService ticketPriceService,
+                             TicketTypeRequestHelper ticketTypeRequestHelper,
+                             AccountPurchaseLimiter accountPurchaseLimiter,
+                             SeatHoldService seatHoldService,
+                             RefundService refundService) {
+        this.ticketPaymentService = ticketPaymentService;
+        this.seatReservationService = seatReservationService;
+        this.ticketPriceService = ticketPriceService;
+        this.ticketTypeRequestHelper = ticketTypeRequestHelper;
+        this.accountPurchaseLimiter = accountPurchaseLimiter;
+        this.seatHoldService = seatHoldService;
+        this.refundService = refundService;
+    }
+
 
     /**
      * Requests to reserve seats and pay for the tickets specified.
+     * Seats are held and pinned for the length of a payment while it is taken, then reserved
+     * and confirmed once it succeeds. If payment is turned down, the held seats and the
+     * account's rolling limits are given back. If the purchase fails once payment may have
+     * been taken, including when the hold lapsed during payment and its seats have since
+     * been taken, a refund is requested, and the account's limits stay used until the
+     * refund service settles it.
      *
      * @param accountId the account to be used to pay for tickets.
      * @param ticketTypeRequests an array of ticket requests that are to be purchased.
      * @throws InvalidPurchaseException if there is an issue with the given accountId
-     * or ticketTypeRequest.
+     * or ticketTypeRequest, the purchase would exceed the account's rolling limits,
+     * or there are not enough seats available.
+     * @throws PurchaseNotCompletedException if the purchase failed after payment may have
+     * been taken, and a refund has been requested.
      */
     @Override
     public void purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests)
             throws InvalidPurchaseException {
 
-        validateAccountId(accountId);
-        ticketTypeRequestHelper.validateTicketTypes(ticketTypeRequests);
-        Map<TicketTypeRequest.Type, Integer> ticketCounts =
-                ticketTypeRequestHelper.getTicketRequestCounts(ticketTypeRequests);
-        ticketPaymentService.makePayment(accountId,
-                calculateTicketRequestTotalPrice(ticketCounts));
-        seatReservationService.reserveSeat(accountId,
-                calculateTotalSeatsRequired(ticketCounts));
+        validate(accountId, ticketTypeRequests);
+        TicketCounts ticketCounts = count(accountId, ticketTypeRequests);
+        int totalTickets = calculateTotalTickets(ticketCounts);
+        int totalPrice = price(accountId, ticketCounts);
+        int totalSeats = calculateTotalSeatsRequired(ticketCounts);
+
+        accountPurchaseLimiter.acquire(accountId, totalTickets, totalPrice);
+        SeatHold seatHold = holdSeatsForPayment(accountId, totalTickets, totalPrice, totalSeats);
+        try {
+            pay(accountId, ticketCounts, totalPrice);
+        } catch (GatewayTimeoutException e) {
+            seatHoldService.release(seatHold);
+            throw requestRefund(accountId, totalTickets, totalPrice, e);
+        } catch (RuntimeException e) {
+            seatHoldService.release(seatHold);
+            accountPurchaseLimiter.release(accountId, totalTickets, totalPrice);
+            throw e;
+        }
+        try {
+            reserve(accountId, ticketCounts, totalSeats);
+            seatHoldService.confirm(seatHold);
+        } catch (RuntimeException e) {
+            seatHoldService.release(seatHold);
+            throw requestRefund(accountId, totalTickets, totalPrice, e);
+        }
+    }
+
+
+    /**
+     * Holds the seats and pins the hold, so it cannot lapse while payment is in flight.
+     * If either fails, the account's rolling limits are given back.
+     */
+    private SeatHold holdSeatsForPayment(Long accountId, int totalTickets, int totalPrice, int totalSeats) {
+
+        SeatHold seatHold;
+        try {
+            seatHold = seatHoldService.holdSeats(accountId, totalSeats);
+        } catch (RuntimeException e) {
+            accountPurchaseLimiter.release(accountId, totalTickets, totalPrice);
+            throw e;
+        }
+        try {
+            seatHoldService.pin(seatHold);
+        } catch (RuntimeException e) {
+            seatHoldService.release(seatHold);
+            accountPurchaseLimiter.release(accountId, totalTickets, totalPrice);
+            throw e;
+        }
+        return seatHold;
+    }
+
+
+    /**
+     * Requests a refund of a payment that may have been taken for a purchase that failed.
+     *
+     * @return the exception to tell the caller a refund has been requested.
+     */
+    private PurchaseNotCompletedException requestRefund(Long accountId, int totalTickets, int totalPrice,
+                                                        RuntimeException cause) {
+
+        refundService.requestRefund(accountId, totalTickets, totalPrice, cause);
+        return new PurchaseNotCompletedException(cause,
+                "Account {0} may have been charged {1}, but the purchase could not be completed. A refund has been requested.",
+                String.valueOf(accountId), totalPrice);
+    }
+
+
+    /**
+     * Validates the given accountId and ticket types, recording a PurchaseValidationEvent.
+     */
+    private void validate(Long accountId, TicketTypeRequest... ticketTypeRequests) {
+        runStage(PurchaseValidationEvent::beginIfEnabled, validation, accountId, null, ticketTypeRequests, 0);
+    }
+
+
+    /**
+     * Validates and retrieves the ticket counts, recording a PurchaseCountingEvent.
+     */
+    private TicketCounts count(Long accountId, TicketTypeRequest... ticketTypeRequests) {
+        return runStage(PurchaseCountingEvent::beginIfEnabled, counting, accountId, null, ticketTypeRequests, 0);
+    }
+
+
+    /**
+     * Calculates the total cost, recording a PurchasePricingEvent.
+     */
+    private int price(Long accountId, TicketCounts ticketCounts) {
+        return runStage(PurchasePricingEvent::beginIfEnabled, pricing, accountId, ticketCounts, ticketCounts, 0);
+    }
+
+
+    /**
+     * Takes payment for the tickets, recording a PurchasePaymentEvent.
+     */
+    private void pay(Long accountId, TicketCounts ticketCounts, int totalPrice) {
+        runStage(PurchasePaymentEvent::beginIfEnabled, payment, accountId, ticketCounts, null, totalPrice);
+    }
+
+
+    /**
+     * Reserves the seats, recording a SeatReservationEvent.
+     */
+    private void reserve(Long accountId, TicketCounts ticketCounts, int totalSeats) {
+        runStage(SeatReservationEvent::beginIfEnabled, reservation, accountId, ticketCounts, null, totalSeats);
+    }
+
+
+    /**
+     * Runs one stage of a purchase, completing the event it began, if any, with the
+     * exception the stage failed with, or as accepted.
+     *
+     * @param begin begins the stage's event, or returns null if it is not enabled.
+     * @param stage the work of the stage; if it returns the ticket counts, they are recorded.
+     * @param accountId the account making the purchase.
+     * @param ticketCounts the ticket counts, or null if they are not known by this stage.
+     * @param argument the argument the stage works on, if any.
+     * @param amount the amount the stage works on, if any.
+     * @return the result of the stage.
+     */
+    private <A, R> R runStage(Supplier<? extends PurchaseStageEvent> begin, Stage<A, R> stage, Long accountId,
+                              TicketCounts ticketCounts, A argument, int amount) {
+
+        PurchaseStageEvent event = begin.get();
+        R result;
+        try {
+            result = stage.run(accountId, argument, amount);
+        } catch (RuntimeException e) {
+            PurchaseStageEvent.completeIfBegun(event, accountId, ticketCounts, e);
+            throw e;
+        }
+        PurchaseStageEvent.completeIfBegun(event, accountId,
+                result instanceof TicketCounts ? (TicketCounts) result : ticketCounts, null);
+        return result;
     }
 
 
@@ -56,34 +256,56 @@ public class TicketServiceImpl implements TicketService {
 
 
     /**
-     * Takes a Map of Ticket types and required quantities; calculates total cost.
+     * Takes the ticket counts; calculates total tickets requested.
      *
-     * @param ticketCounts A Map of Ticket Types mapped to the quantity requested.
+     * @param ticketCounts the quantity requested of each ticket type.
+     * @return Total number of tickets, including those that do not need a seat.
+     */
+    private int calculateTotalTickets(TicketCounts ticketCounts) {
+
+        int totalTickets = 0;
+        for (int id = 0; id < ticketCounts.size(); id++) {
+            totalTickets += ticketCounts.countAt(id);
+        }
+        return totalTickets;
+    }
+
+
+    /**
+     * Takes the ticket counts; calculates total cost, charging each type at the price of
+     * the type its price key names.
+     *
+     * @param ticketCounts the quantity requested of each ticket type.
      * @return Total price of all tickets requests.
      */
-    private int calculateTicketRequestTotalPrice(
-            Map<TicketTypeRequest.Type, Integer> ticketCounts) {
+    private int calculateTicketRequestTotalPrice(TicketCounts ticketCounts) {
 
-        return ticketCounts.keySet().stream()
-                .map(ticketType ->
-                        ticketPriceService.getTicketPrice(ticketType) *
-                                ticketCounts.get(ticketType))
-                .reduce(0, Integer::sum);
+        int totalPrice = 0;
+        for (int id = 0; id < ticketCounts.size(); id++) {
+            int count = ticketCounts.countAt(id);
+            if (count > 0) {
+                totalPrice += ticketPriceService.getTicketPrice(ticketCounts.priceTypeAt(id)) * count;
+            }
+        }
+        return totalPrice;
     }
 
 
     /**
-     * Takes a Map of Ticket types and required quantities; calculates total seats required.
+     * Takes the ticket counts; calculates total seats required.
      *
-     * @param ticketCounts A Map of Ticket Types mapped to the quantity requested.
+     * @param ticketCounts the quantity requested of each ticket type.
      * @return Total number of seats required.
      */
-    private int calculateTotalSeatsRequired(Map<TicketTypeRequest.Type, Integer> ticketCounts) {
+    private int calculateTotalSeatsRequired(TicketCounts ticketCounts) {
 
-        return ticketCounts.keySet().stream()
-                .filter(tickets -> !tickets.name().equals(TicketTypeRequest.Type.INFANT.name()))
-                .map(ticketCounts::get)
-                .reduce(0, Integer::sum);
+        int totalSeats = 0;
+        for (int id = 0; id < ticketCounts.size(); id++) {
+            if (ticketCounts.typeAt(id).seated()) {
+                totalSeats += ticketCounts.countAt(id);
+            }
+        }
+        return totalSeats;
     }
 
 }
@@ -0,0 +1,88 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * The number of tickets requested of each type, held in an array indexed by type id, so
+ * counting, pricing and seat totals run over primitives without boxing or hashing.
+ */
+public class TicketCounts {
+
+    private final TicketTypeRegistry registry;
+    private final TicketTypeRequest.Type[] types;
+    private final int[] counts;
+
+
+    /**
+     * @param registry the ticket types that can be counted.
+     */
+    public TicketCounts(TicketTypeRegistry registry) {
+        this.registry = registry;
+        this.types = registry.types();
+        this.counts = new int[types.length];
+    }
+
+
+    /**
+     * Adds to the count of the given type.
+     *
+     * @param type a type from the registry these counts were created with.
+     * @param count the number of tickets to add.
+     */
+    public void add(TicketTypeRequest.Type type, int count) {
+        counts[type.id()] += count;
+    }
+
+
+    /**
+     * @return the count of the given type.
+     */
+    public int get(TicketTypeRequest.Type type) {
+        return counts[type.id()];
+    }
+
+
+    /**
+     * @return the number of ticket types, one more than the highest id.
+     */
+    public int size() {
+        return counts.length;
+    }
+
+
+    /**
+     * @return the ticket type with the given id.
+     */
+    public TicketTypeRequest.Type typeAt(int id) {
+        return types[id];
+    }
+
+
+    /**
+     * @return the ticket type whose price the type with the given id is charged at.
+     */
+    public TicketTypeRequest.Type priceTypeAt(int id) {
+        return registry.priceTypeAt(id);
+    }
+
+
+    /**
+     * @return the count of the ticket type with the given id.
+     */
+    public int countAt(int id) {
+        return counts[id];
+    }
+
+
+    @Override
+    public String toString() {
+
+        StringBuilder builder = new StringBuilder("{");
+        for (int id = 0; id < counts.length; id++) {
+            if (id > 0) {
+                builder.append(", ");
+            }
+            builder.append(types[id].name()).append('=').append(counts[id]);
+        }
+        return builder.append('}').toString();
+    }
+
+}
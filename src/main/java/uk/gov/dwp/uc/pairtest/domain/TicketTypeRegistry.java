@@ -0,0 +1,234 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The ticket types on sale: the built-in ADULT, CHILD and INFANT types with ids 0 to 2,
+ * followed by any other types in the order config lists them, so a type's id can index
+ * arrays of counts and prices.
+ * <p>
+ * The registry is loaded once at startup, from the file named by the ticket.types.config
+ * system property if it is set, otherwise from ticket-types.properties on the classpath,
+ * and passed to the services that need it.
+ */
+public class TicketTypeRegistry {
+
+    public static final String CONFIG_PROPERTY = "ticket.types.config";
+    static final String DEFAULT_RESOURCE = "/ticket-types.properties";
+    static final String TYPES_KEY = "ticket.types";
+    static final String TYPE_KEY_PREFIX = "ticket.type.";
+
+    private static final TicketTypeRegistry BUILT_IN = new TicketTypeRegistry(TicketTypeRequest.Type.values());
+
+    private final TicketTypeRequest.Type[] types;
+    private final Map<String, TicketTypeRequest.Type> typesByName;
+    private final int[] priceTypeIds;
+
+
+    /**
+     * @throws IllegalArgumentException if a type's price key does not name a type that is
+     * priced under its own name.
+     */
+    private TicketTypeRegistry(TicketTypeRequest.Type[] types) {
+
+        this.types = types;
+        this.typesByName = new HashMap<>();
+        for (TicketTypeRequest.Type type : types) {
+            typesByName.put(type.name(), type);
+        }
+        this.priceTypeIds = new int[types.length];
+        for (TicketTypeRequest.Type type : types) {
+            TicketTypeRequest.Type priceType = typesByName.get(type.priceKey());
+            if (priceType == null || !priceType.priceKey().equals(priceType.name())) {
+                throw new IllegalArgumentException("Ticket type " + type.name() + " is priced as "
+                        + type.priceKey() + ", which is not a ticket type priced under its own name");
+            }
+            priceTypeIds[type.id()] = priceType.id();
+        }
+    }
+
+
+    /**
+     * @return a registry of just the built-in ADULT, CHILD and INFANT types.
+     */
+    public static TicketTypeRegistry builtIn() {
+        return BUILT_IN;
+    }
+
+
+    /**
+     * Creates a registry from ticket type config.
+     *
+     * @param config the config, listing the types under ticket.types and their attributes
+     *               under ticket.type.NAME.seated, .requiresAdult and .priceKey.
+     * @return a registry of the built-in types and the configured types.
+     * @throws IllegalArgumentException if the config lists no types, lists a blank name,
+     * lists a type twice, has an attribute that is not true or false, changes an attribute of a built-in type,
+     * or prices a type under a key that is not a type priced under its own name.
+     */
+    public static TicketTypeRegistry load(Properties config) {
+
+        String list = config.getProperty(TYPES_KEY, "").trim();
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("No ticket types are configured under " + TYPES_KEY);
+        }
+        List<TicketTypeRequest.Type> types = new ArrayList<>(Arrays.asList(TicketTypeRequest.Type.values()));
+        Set<String> listed = new HashSet<>();
+        for (String name : list.split("\\s*,\\s*", -1)) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException(TYPES_KEY + " lists a blank ticket type name: " + list);
+            }
+            if (!listed.add(name)) {
+                throw new IllegalArgumentException("Ticket type " + name + " is configured twice");
+            }
+            TicketTypeRequest.Type builtIn = BUILT_IN.get(name);
+            if (builtIn != null) {
+                checkBuiltIn(config, builtIn);
+                continue;
+            }
+            types.add(new TicketTypeRequest.Type(types.size(), name,
+                    getFlag(config, name, "seated", true),
+                    getFlag(config, name, "requiresAdult", false),
+                    getPriceKey(config, name)));
+        }
+        return new TicketTypeRegistry(types.toArray(new TicketTypeRequest.Type[0]));
+    }
+
+
+    /**
+     * Creates a registry from ticket type config in properties format.
+     *
+     * @param config the config to read.
+     * @return a registry of the configured types.
+     * @throws IOException if the config cannot be read.
+     */
+    public static TicketTypeRegistry load(InputStream config) throws IOException {
+
+        Properties properties = new Properties();
+        properties.load(config);
+        return load(properties);
+    }
+
+
+    /**
+     * Loads the registry of the ticket types on sale, from the file named by the
+     * ticket.types.config system property, or else from ticket-types.properties on the
+     * classpath. To be called once at startup.
+     *
+     * @return a registry of the built-in types and the configured types.
+     * @throws UncheckedIOException if the config cannot be read.
+     * @throws IllegalStateException if there is no config on the classpath.
+     * @throws IllegalArgumentException if the config is invalid.
+     */
+    public static TicketTypeRegistry loadDefault() {
+
+        String path = System.getProperty(CONFIG_PROPERTY);
+        try (InputStream config = path != null
+                ? Files.newInputStream(Path.of(path))
+                : TicketTypeRegistry.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (config == null) {
+                throw new IllegalStateException("No ticket type config found at " + DEFAULT_RESOURCE);
+            }
+            return load(config);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read ticket type config", e);
+        }
+    }
+
+
+    /**
+     * @return the ticket type with the given name, or null if there is none.
+     */
+    public TicketTypeRequest.Type get(String name) {
+        return typesByName.get(name);
+    }
+
+
+    /**
+     * @return true if the ticket type is one of this registry's.
+     */
+    public boolean contains(TicketTypeRequest.Type type) {
+
+        int id = type.id();
+        return id < types.length && types[id] == type;
+    }
+
+
+    /**
+     * @return the ticket type whose price the type with the given id is charged at.
+     */
+    public TicketTypeRequest.Type priceTypeAt(int id) {
+        return types[priceTypeIds[id]];
+    }
+
+
+    /**
+     * @return the number of ticket types, one more than the highest id.
+     */
+    public int size() {
+        return types.length;
+    }
+
+
+    /**
+     * @return the ticket types, in id order.
+     */
+    public TicketTypeRequest.Type[] values() {
+        return types.clone();
+    }
+
+
+    /**
+     * @return the ticket types, in id order, without copying; not to be modified.
+     */
+    TicketTypeRequest.Type[] types() {
+        return types;
+    }
+
+
+    /**
+     * @throws IllegalArgumentException if the config gives a built-in type different attributes.
+     */
+    private static void checkBuiltIn(Properties config, TicketTypeRequest.Type builtIn) {
+
+        String name = builtIn.name();
+        if (getFlag(config, name, "seated", builtIn.seated()) != builtIn.seated()
+                || getFlag(config, name, "requiresAdult", builtIn.requiresAdult()) != builtIn.requiresAdult()
+                || !getPriceKey(config, name).equals(builtIn.priceKey())) {
+            throw new IllegalArgumentException("Ticket type " + name + " is built in, and its attributes cannot be changed");
+        }
+    }
+
+
+    private static String getPriceKey(Properties config, String name) {
+        return config.getProperty(TYPE_KEY_PREFIX + name + ".priceKey", name).trim();
+    }
+
+
+    private static boolean getFlag(Properties config, String name, String attribute, boolean defaultValue) {
+
+        String key = TYPE_KEY_PREFIX + name + "." + attribute;
+        String value = config.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        value = value.trim();
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new IllegalArgumentException(key + " must be true or false, but is " + value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+}
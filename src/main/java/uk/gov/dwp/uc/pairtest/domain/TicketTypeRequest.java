@@ -5,9 +5,90 @@ package uk.gov.dwp.uc.pairtest.domain;
  */
 
 public record TicketTypeRequest(Type type, int noOfTickets) {
-    public enum Type {
-        ADULT, CHILD, INFANT
-    }
-}
 
+    /**
+     * A type of ticket, numbered densely from 0 so counts and prices for each type can be
+     * kept in arrays indexed by id. ADULT, CHILD and INFANT are built in, with ids 0 to 2 in
+     * every registry; any other types are created by a TicketTypeRegistry from config.
+     */
+    public static final class Type {
+
+        public static final Type ADULT = new Type(0, "ADULT", true, false, "ADULT");
+        public static final Type CHILD = new Type(1, "CHILD", true, true, "CHILD");
+        public static final Type INFANT = new Type(2, "INFANT", false, true, "INFANT");
+
+        private static final Type[] BUILT_IN = {ADULT, CHILD, INFANT};
+
+        private final int id;
+        private final String name;
+        private final boolean seated;
+        private final boolean requiresAdult;
+        private final String priceKey;
+
+        Type(int id, String name, boolean seated, boolean requiresAdult, String priceKey) {
+            this.id = id;
+            this.name = name;
+            this.seated = seated;
+            this.requiresAdult = requiresAdult;
+            this.priceKey = priceKey;
+        }
+
+        /**
+         * @return the type's dense index within its registry.
+         */
+        public int id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
 
+        /**
+         * @return true if the ticket is allocated a seat.
+         */
+        public boolean seated() {
+            return seated;
+        }
+
+        /**
+         * @return true if the ticket can only be bought alongside a ticket that does not require an adult.
+         */
+        public boolean requiresAdult() {
+            return requiresAdult;
+        }
+
+        /**
+         * @return the key the ticket is priced under.
+         */
+        public String priceKey() {
+            return priceKey;
+        }
+
+        /**
+         * @return the built-in ticket types, in id order.
+         */
+        public static Type[] values() {
+            return BUILT_IN.clone();
+        }
+
+        /**
+         * @return the built-in ticket type with the given name.
+         * @throws IllegalArgumentException if there is no such built-in ticket type.
+         */
+        public static Type valueOf(String name) {
+
+            for (Type type : BUILT_IN) {
+                if (type.name.equals(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("No ticket type " + name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
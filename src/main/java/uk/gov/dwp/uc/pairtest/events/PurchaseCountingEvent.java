@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uk.gov.dwp.uc.pairtest.PurchaseCounting")
+@Label("Purchase Counting")
+@Description("Counts and checks the tickets requested of each type.")
+public class PurchaseCountingEvent extends PurchaseStageEvent {
+
+    private static final Gate<PurchaseCountingEvent> GATE =
+            new Gate<>(PurchaseCountingEvent.class, PurchaseCountingEvent::new);
+
+
+    /**
+     * @return a begun event, or null without allocating if no running recording has it enabled.
+     */
+    public static PurchaseCountingEvent beginIfEnabled() {
+
+        return GATE.beginIfEnabled();
+    }
+
+}
@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uk.gov.dwp.uc.pairtest.PurchasePayment")
+@Label("Purchase Payment")
+@Description("Takes payment for the tickets through the payment gateway.")
+public class PurchasePaymentEvent extends PurchaseStageEvent {
+
+    private static final Gate<PurchasePaymentEvent> GATE =
+            new Gate<>(PurchasePaymentEvent.class, PurchasePaymentEvent::new);
+
+
+    /**
+     * @return a begun event, or null without allocating if no running recording has it enabled.
+     */
+    public static PurchasePaymentEvent beginIfEnabled() {
+
+        return GATE.beginIfEnabled();
+    }
+
+}
@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uk.gov.dwp.uc.pairtest.PurchasePricing")
+@Label("Purchase Pricing")
+@Description("Prices the tickets requested.")
+public class PurchasePricingEvent extends PurchaseStageEvent {
+
+    private static final Gate<PurchasePricingEvent> GATE =
+            new Gate<>(PurchasePricingEvent.class, PurchasePricingEvent::new);
+
+
+    /**
+     * @return a begun event, or null without allocating if no running recording has it enabled.
+     */
+    public static PurchasePricingEvent beginIfEnabled() {
+
+        return GATE.beginIfEnabled();
+    }
+
+}
@@ -0,0 +1,137 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import uk.gov.dwp.uc.pairtest.domain.TicketCounts;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.function.Supplier;
+
+/**
+ * A JFR event timing one stage of a ticket purchase, so slow purchases can be lined up
+ * against GC, lock and I/O events in the same recording.
+ * <p>
+ * Events are only created when a running recording has them enabled, and their fields
+ * only filled in when they are going to be committed, so when no recording is running a
+ * stage costs a check of a cached flag and allocates nothing.
+ */
+@Category({"Cinema Tickets", "Purchase"})
+@StackTrace(false)
+public abstract class PurchaseStageEvent extends Event {
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    @Label("Account Id")
+    long accountId;
+
+    @Label("Total Tickets")
+    int totalTickets;
+
+    @Label("Ticket Counts")
+    String ticketCounts;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Rejection Reason")
+    String rejectionReason;
+
+
+    /**
+     * Begins events of one type, if the type is enabled in any running recording. The event
+     * type is only looked up once JFR has been started, so checking does not start JFR itself.
+     */
+    static final class Gate<E extends PurchaseStageEvent> {
+
+        private final Class<E> eventClass;
+        private final Supplier<E> factory;
+        private volatile EventType eventType;
+
+
+        Gate(Class<E> eventClass, Supplier<E> factory) {
+            this.eventClass = eventClass;
+            this.factory = factory;
+        }
+
+
+        /**
+         * @return a begun event, or null without allocating if no running recording has it enabled.
+         */
+        E beginIfEnabled() {
+
+            if (!isEnabled()) {
+                return null;
+            }
+            E event = factory.get();
+            event.begin();
+            return event;
+        }
+
+
+        private boolean isEnabled() {
+
+            EventType type = eventType;
+            if (type == null) {
+                if (!FlightRecorder.isInitialized()) {
+                    return false;
+                }
+                type = EventType.getEventType(eventClass);
+                eventType = type;
+            }
+            return type.isEnabled();
+        }
+    }
+
+
+    /**
+     * Ends the stage and commits the event, if one was begun.
+     *
+     * @param event the event returned by beginIfEnabled, or null if it was not enabled.
+     * @param accountId the account making the purchase.
+     * @param ticketCounts the ticket counts, or null if they are not known by this stage.
+     * @param failure the exception the stage failed with, or null if it succeeded.
+     */
+    public static void completeIfBegun(PurchaseStageEvent event, Long accountId, TicketCounts ticketCounts,
+                                       RuntimeException failure) {
+        if (event != null) {
+            event.complete(accountId, ticketCounts, failure);
+        }
+    }
+
+
+    /**
+     * Ends the stage and commits the event, if it is enabled and over its threshold.
+     *
+     * @param accountId the account making the purchase.
+     * @param ticketCounts the ticket counts, or null if they are not known by this stage.
+     * @param failure the exception the stage failed with, or null if it succeeded.
+     */
+    public void complete(Long accountId, TicketCounts ticketCounts, RuntimeException failure) {
+
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.accountId = accountId == null ? 0 : accountId;
+        if (ticketCounts != null) {
+            this.ticketCounts = ticketCounts.toString();
+            for (int id = 0; id < ticketCounts.size(); id++) {
+                this.totalTickets += ticketCounts.countAt(id);
+            }
+        }
+        if (failure == null) {
+            this.outcome = ACCEPTED;
+        } else {
+            this.outcome = failure instanceof InvalidPurchaseException ? REJECTED : FAILED;
+            this.rejectionReason = failure.getMessage();
+        }
+        commit();
+    }
+
+}
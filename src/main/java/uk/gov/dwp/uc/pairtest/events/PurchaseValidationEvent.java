@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uk.gov.dwp.uc.pairtest.PurchaseValidation")
+@Label("Purchase Validation")
+@Description("Validates the account id and ticket types.")
+public class PurchaseValidationEvent extends PurchaseStageEvent {
+
+    private static final Gate<PurchaseValidationEvent> GATE =
+            new Gate<>(PurchaseValidationEvent.class, PurchaseValidationEvent::new);
+
+
+    /**
+     * @return a begun event, or null without allocating if no running recording has it enabled.
+     */
+    public static PurchaseValidationEvent beginIfEnabled() {
+
+        return GATE.beginIfEnabled();
+    }
+
+}
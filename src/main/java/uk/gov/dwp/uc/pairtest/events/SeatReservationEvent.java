@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uk.gov.dwp.uc.pairtest.SeatReservation")
+@Label("Seat Reservation")
+@Description("Reserves the seats through the seat reservation service.")
+public class SeatReservationEvent extends PurchaseStageEvent {
+
+    private static final Gate<SeatReservationEvent> GATE =
+            new Gate<>(SeatReservationEvent.class, SeatReservationEvent::new);
+
+
+    /**
+     * @return a begun event, or null without allocating if no running recording has it enabled.
+     */
+    public static SeatReservationEvent beginIfEnabled() {
+
+        return GATE.beginIfEnabled();
+    }
+
+}
@@ -0,0 +1,13 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import java.text.MessageFormat;
+
+/**
+ * Thrown when a third party gateway fails a call. Unlike an InvalidPurchaseException,
+ * the purchase itself may be fine, and could succeed if tried again.
+ */
+public class GatewayException extends RuntimeException {
+    public GatewayException(String message, Object... values) {
+        super(new MessageFormat(message).format(values));
+    }
+}
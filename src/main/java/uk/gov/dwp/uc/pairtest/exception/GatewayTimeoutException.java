@@ -0,0 +1,11 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown when a third party gateway does not answer a call in time. The call may
+ * or may not have taken effect.
+ */
+public class GatewayTimeoutException extends GatewayException {
+    public GatewayTimeoutException(String message, Object... values) {
+        super(message, values);
+    }
+}
@@ -0,0 +1,11 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown when a third party gateway turns a call away without attempting it, because it is
+ * at its concurrency limit or throughput cap. The call has not taken effect.
+ */
+public class GatewayUnavailableException extends GatewayException {
+    public GatewayUnavailableException(String message, Object... values) {
+        super(message, values);
+    }
+}
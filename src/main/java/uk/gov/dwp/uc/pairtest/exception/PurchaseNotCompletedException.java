@@ -0,0 +1,14 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import java.text.MessageFormat;
+
+/**
+ * Thrown when a purchase fails after its payment may have been taken. A refund has been
+ * requested, so the caller should tell the purchaser their payment will be returned,
+ * rather than that the purchase was invalid.
+ */
+public class PurchaseNotCompletedException extends RuntimeException {
+    public PurchaseNotCompletedException(Throwable cause, String message, Object... values) {
+        super(new MessageFormat(message).format(values), cause);
+    }
+}
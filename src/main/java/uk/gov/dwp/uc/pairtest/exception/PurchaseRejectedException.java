@@ -0,0 +1,15 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import java.text.MessageFormat;
+
+/**
+ * Thrown when a purchase is turned away because the service is overloaded, rather than
+ * because anything is wrong with it. It is not an InvalidPurchaseException, so callers
+ * handling invalid purchases do not blame the purchaser for load. It has no stack trace,
+ * so a single instance can be created up front and shed load cheaply.
+ */
+public class PurchaseRejectedException extends RuntimeException {
+    public PurchaseRejectedException(String message, Object... values) {
+        super(new MessageFormat(message).format(values), null, false, false);
+    }
+}
@@ -1,10 +1,9 @@
 package uk.gov.dwp.uc.pairtest.helpers;
 
+import uk.gov.dwp.uc.pairtest.domain.TicketCounts;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
-import java.util.Map;
-
 public interface TicketTypeRequestHelper {
 
     /**
@@ -19,11 +18,10 @@ public interface TicketTypeRequestHelper {
      * Retrieves TicketTypeRequest counts.
      *
      * @param ticketTypeRequests: The array of TicketTypeRequests to validate the requested ticket counts
-     * @return A map of TicketTypeRequest.Type to a count of tickets with each type,
-     * in the ticketTypeRequests.
+     * @return the count of tickets of each type in the ticketTypeRequests.
      * @throws InvalidPurchaseException if the ticketTypeRequests are invalid.
      */
-    Map<TicketTypeRequest.Type, Integer> getTicketRequestCounts(TicketTypeRequest... ticketTypeRequests)
+    TicketCounts getTicketRequestCounts(TicketTypeRequest... ticketTypeRequests)
             throws InvalidPurchaseException;
 
 }
@@ -1,13 +1,10 @@
 package uk.gov.dwp.uc.pairtest.helpers;
 
+import uk.gov.dwp.uc.pairtest.domain.TicketCounts;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
 public class TicketTypeRequestHelperImpl implements TicketTypeRequestHelper {
 
     //Could be defined in config
@@ -15,16 +12,35 @@ public class TicketTypeRequestHelperImpl implements TicketTypeRequestHelper {
     int MIN_TICKETS_PER_TRANSACTION = 1;
     int MIN_ADULTS_PER_TRANSACTION = 1;
 
+    private final TicketTypeRegistry ticketTypeRegistry;
+
+
+    /**
+     * @param ticketTypeRegistry the ticket types on sale.
+     */
+    public TicketTypeRequestHelperImpl(TicketTypeRegistry ticketTypeRegistry) {
+        this.ticketTypeRegistry = ticketTypeRegistry;
+    }
+
 
     /**
      * {@inheritDoc}
-     * @throws InvalidPurchaseException if any of the ticketTypeRequests are null.
+     * @throws InvalidPurchaseException if any of the ticketTypeRequests are null,
+     * or are of a type that is not on sale.
      */
     public void validateTicketTypes(TicketTypeRequest... ticketTypeRequests)
             throws InvalidPurchaseException {
 
-        if (Arrays.stream(ticketTypeRequests).anyMatch(request -> request.type() == null)) {
-            throw new InvalidPurchaseException("Ticket request contains null TicketType");
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            if (ticketTypeRequest.type() == null) {
+                throw new InvalidPurchaseException("Ticket request contains null TicketType");
+            }
+        }
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            if (!ticketTypeRegistry.contains(ticketTypeRequest.type())) {
+                throw new InvalidPurchaseException("Ticket request contains unknown TicketType {0}",
+                        ticketTypeRequest.type().name());
+            }
         }
     }
 
@@ -32,26 +48,31 @@ public class TicketTypeRequestHelperImpl implements TicketTypeRequestHelper {
     /**
      * {@inheritDoc}
      * Validates and retrieves TicketTypeRequest counts, to ensure they do not exceed the
-     * maximum allowed either individually or in total.
+     * maximum allowed either individually or in total. Tickets of a type that does not
+     * require an adult count as adult tickets.
      * @throws InvalidPurchaseException if the requested number of any type or the total
      * requested tickets exceeds the maximum.
      */
-    public Map<TicketTypeRequest.Type, Integer> getTicketRequestCounts(
-            TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
+    public TicketCounts getTicketRequestCounts(TicketTypeRequest... ticketTypeRequests)
+            throws InvalidPurchaseException {
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts =
-                getCountsForAllTicketTypes(ticketTypeRequests);
+        TicketCounts ticketCounts = getCountsForAllTicketTypes(ticketTypeRequests);
+
+        int adultTicketCount = 0;
+        int totalTicketCount = 0;
+        for (int id = 0; id < ticketCounts.size(); id++) {
+            if (!ticketCounts.typeAt(id).requiresAdult()) {
+                adultTicketCount += ticketCounts.countAt(id);
+            }
+            totalTicketCount += ticketCounts.countAt(id);
+        }
 
-        if (ticketCounts.get(TicketTypeRequest.Type.ADULT) < MIN_ADULTS_PER_TRANSACTION ) {
+        if (adultTicketCount < MIN_ADULTS_PER_TRANSACTION) {
             throw new InvalidPurchaseException(
                     "TicketTypeRequest contains {0} adult tickets, requires at least {1}.",
-                    ticketCounts.get(TicketTypeRequest.Type.ADULT), MIN_ADULTS_PER_TRANSACTION);
+                    adultTicketCount, MIN_ADULTS_PER_TRANSACTION);
         }
 
-        int totalTicketCount = ticketCounts.values()
-                .stream()
-                .reduce(0, Integer::sum);
-
         if (totalTicketCount < MIN_TICKETS_PER_TRANSACTION ||
                 totalTicketCount > MAX_TICKETS_PER_TRANSACTION) {
             throw new InvalidPurchaseException(
@@ -67,47 +88,25 @@ public class TicketTypeRequestHelperImpl implements TicketTypeRequestHelper {
      * Counts the number of each type of tickets in the given TicketTypeRequests.
      *
      * @param ticketTypeRequests: The array of TicketTypeRequests to search through.
-     * @return A map of TicketTypeRequest.Type to a count of tickets with each type,
-     * in the ticketTypeRequests.
-     */
-    private Map<TicketTypeRequest.Type, Integer> getCountsForAllTicketTypes(
-            TicketTypeRequest... ticketTypeRequests) {
-
-        return Stream.of(TicketTypeRequest.Type.values()).collect(
-                Collectors.toMap(type -> type, type -> getCountForTicketType(type, ticketTypeRequests))
-        );
-    }
-
-
-    /**
-     * Counts the number of tickets in the given TicketTypeRequests for a given
-     * specific ticket type.
-     *
-     * @param type: the TicketTypeRequest.Type to search for and count.
-     * @param ticketTypeRequests: the array of TicketTypeRequests to search through.
-     * @return a count of the number of tickets of the given type that are within
-     * the given array of TicketTypeRequests.
-     * @throws InvalidPurchaseException: if the number of tickets requested is less than
-     * minimum or more than maximum allowed.
+     * @return the count of tickets of each type in the ticketTypeRequests.
+     * @throws InvalidPurchaseException: if the number of tickets in any request is less
+     * than minimum or more than maximum allowed.
      */
-    private int getCountForTicketType(
-            TicketTypeRequest.Type type, TicketTypeRequest... ticketTypeRequests)
+    private TicketCounts getCountsForAllTicketTypes(TicketTypeRequest... ticketTypeRequests)
             throws InvalidPurchaseException {
 
-        return Arrays.stream(ticketTypeRequests)
-                .filter(ticketTypeRequest->ticketTypeRequest.type() == type)
-                .map(ticketTypeRequest -> {
-                    if (ticketTypeRequest.noOfTickets() >= MIN_TICKETS_PER_TRANSACTION &&
-                            ticketTypeRequest.noOfTickets() <= MAX_TICKETS_PER_TRANSACTION) {
-                        return ticketTypeRequest.noOfTickets();
-                    } else {
-                        throw new InvalidPurchaseException(
-                                "Number of tickets requested is {0}, but needs to be between {1} and {2}.",
-                                ticketTypeRequest.noOfTickets(), MIN_TICKETS_PER_TRANSACTION,
-                                MAX_TICKETS_PER_TRANSACTION);
-                    }
-                })
-                .reduce(0, Integer::sum);
+        TicketCounts ticketCounts = new TicketCounts(ticketTypeRegistry);
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            if (ticketTypeRequest.noOfTickets() < MIN_TICKETS_PER_TRANSACTION ||
+                    ticketTypeRequest.noOfTickets() > MAX_TICKETS_PER_TRANSACTION) {
+                throw new InvalidPurchaseException(
+                        "Number of tickets requested is {0}, but needs to be between {1} and {2}.",
+                        ticketTypeRequest.noOfTickets(), MIN_TICKETS_PER_TRANSACTION,
+                        MAX_TICKETS_PER_TRANSACTION);
+            }
+            ticketCounts.add(ticketTypeRequest.type(), ticketTypeRequest.noOfTickets());
+        }
+        return ticketCounts;
     }
 
 }
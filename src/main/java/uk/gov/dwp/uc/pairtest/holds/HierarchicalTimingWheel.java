@@ -0,0 +1,213 @@
+package uk.gov.dwp.uc.pairtest.holds;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel: four levels of 64 slots, where each slot of a level spans a
+ * whole turn of the level below. Scheduling and cancelling are O(1), and entries are only
+ * touched again when their slot comes round, so hundreds of thousands of pending expiries
+ * cost nothing between ticks. Entries further out than the top level can reach are parked
+ * in its furthest slot and placed again when that slot comes round.
+ * <p>
+ * Entries are intrusive, linking themselves into their slot, so scheduling allocates nothing.
+ * The wheel has no thread of its own; it moves on when advance is called.
+ * Not thread safe; callers are expected to guard the wheel with their own lock.
+ *
+ * @param <E> the type of entry held in the wheel.
+ */
+public class HierarchicalTimingWheel<E extends HierarchicalTimingWheel.Entry> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Entry[] slots = new Entry[LEVELS * SLOTS];
+    private long currentTick;
+    private int size;
+
+
+    /**
+     * An entry that can be scheduled in a timing wheel. An entry can only be in one
+     * wheel at a time.
+     */
+    public static class Entry {
+        Entry previous;
+        Entry next;
+        long deadlineTick;
+        int slot = -1;
+
+        boolean isScheduled() {
+            return slot >= 0;
+        }
+    }
+
+
+    /**
+     * @param tickMillis the resolution of the wheel; entries expire on the first tick at
+     *                   or after their deadline.
+     * @param nowMillis the current time.
+     */
+    public HierarchicalTimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+
+    /**
+     * Schedules the entry to expire at the given time.
+     *
+     * @param entry an entry not already scheduled.
+     * @param deadlineMillis the time at which the entry expires.
+     * @throws IllegalStateException if the entry is already scheduled.
+     */
+    public void schedule(E entry, long deadlineMillis) {
+
+        if (entry.isScheduled()) {
+            throw new IllegalStateException("Entry is already scheduled");
+        }
+        entry.deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        place(entry, currentTick + 1);
+        size++;
+    }
+
+
+    /**
+     * Removes the entry from the wheel without it expiring.
+     *
+     * @param entry the entry to cancel.
+     * @return true if the entry was scheduled, false if it had already expired or been cancelled.
+     */
+    public boolean cancel(E entry) {
+
+        if (!entry.isScheduled()) {
+            return false;
+        }
+        unlink(entry);
+        size--;
+        return true;
+    }
+
+
+    /**
+     * Moves the wheel on to the given time, expiring every entry whose deadline has passed.
+     *
+     * @param nowMillis the current time.
+     * @param onExpiry called with each expired entry, after it has left the wheel.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(long nowMillis, Consumer<? super E> onExpiry) {
+
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            cascade();
+
+            int slot = (int) (currentTick & SLOT_MASK);
+            Entry entry = slots[slot];
+            while (entry != null) {
+                Entry next = entry.next;
+                unlink(entry);
+                if (entry.deadlineTick <= currentTick) {
+                    size--;
+                    onExpiry.accept((E) entry);
+                } else {
+                    place(entry, currentTick + 1);
+                }
+                entry = next;
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of entries waiting to expire.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * When a level has turned a full circle, moves the entries of the next slot of each
+     * level above down to the levels below, highest level first.
+     */
+    private void cascade() {
+
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            int slot = level * SLOTS + (int) ((currentTick >>> shift) & SLOT_MASK);
+            Entry entry = slots[slot];
+            slots[slot] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.previous = null;
+                entry.next = null;
+                entry.slot = -1;
+                place(entry, currentTick);
+                entry = next;
+            }
+        }
+    }
+
+
+    /**
+     * Links the entry into the slot of the lowest level whose span reaches its deadline.
+     * Entries already due go into the slot of the earliest tick still to be processed.
+     */
+    private void place(Entry entry, long earliestTick) {
+
+        long deadline = entry.deadlineTick;
+        if (deadline - currentTick < SLOTS) {
+            link(entry, (int) (Math.max(deadline, earliestTick) & SLOT_MASK));
+            return;
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((deadline >>> shift) - (currentTick >>> shift) < SLOTS) {
+                link(entry, level * SLOTS + (int) ((deadline >>> shift) & SLOT_MASK));
+                return;
+            }
+        }
+        int topShift = SLOT_BITS * (LEVELS - 1);
+        link(entry, (LEVELS - 1) * SLOTS + (int) (((currentTick >>> topShift) + SLOT_MASK) & SLOT_MASK));
+    }
+
+
+    private void link(Entry entry, int slot) {
+
+        Entry head = slots[slot];
+        entry.previous = null;
+        entry.next = head;
+        if (head != null) {
+            head.previous = entry;
+        }
+        slots[slot] = entry;
+        entry.slot = slot;
+    }
+
+
+    private void unlink(Entry entry) {
+
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            slots[entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+        entry.slot = -1;
+    }
+
+}
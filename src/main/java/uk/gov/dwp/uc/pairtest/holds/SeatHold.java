@@ -0,0 +1,43 @@
+package uk.gov.dwp.uc.pairtest.holds;
+
+/**
+ * A number of seats held for an account while its payment is taken.
+ * The hold is its own handle, so confirming or releasing it needs no lookup.
+ */
+public class SeatHold extends HierarchicalTimingWheel.Entry {
+
+    public enum State {
+        HELD, PINNED, CONFIRMED, RELEASED, EXPIRED
+    }
+
+    private final long accountId;
+    private final int seats;
+    private State state = State.HELD;
+
+
+    SeatHold(long accountId, int seats) {
+        this.accountId = accountId;
+        this.seats = seats;
+    }
+
+
+    public long accountId() {
+        return accountId;
+    }
+
+
+    public int seats() {
+        return seats;
+    }
+
+
+    public State state() {
+        return state;
+    }
+
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+}
@@ -0,0 +1,44 @@
+package uk.gov.dwp.uc.pairtest.holds;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+public interface SeatHoldService {
+
+    /**
+     * Holds seats for the account for a short time, while payment is taken.
+     * Seats that are neither confirmed nor released in time are released automatically.
+     *
+     * @param accountId the account the seats are held for.
+     * @param totalSeats the number of seats to hold.
+     * @return the hold, to be confirmed or released.
+     * @throws InvalidPurchaseException if there are not enough seats available.
+     */
+    SeatHold holdSeats(long accountId, int totalSeats) throws InvalidPurchaseException;
+
+    /**
+     * Pins a hold for the length of a payment, so it does not lapse while payment is in
+     * flight. A pinned hold that is neither confirmed nor released by the end of its
+     * payment lease is still released automatically.
+     *
+     * @param seatHold the hold to pin.
+     * @throws InvalidPurchaseException if the hold has already expired or been released.
+     */
+    void pin(SeatHold seatHold) throws InvalidPurchaseException;
+
+    /**
+     * Confirms a hold, so its seats are no longer released automatically.
+     *
+     * @param seatHold the hold to confirm.
+     * @throws InvalidPurchaseException if the hold has already expired or been released,
+     * and its seats have since been taken.
+     */
+    void confirm(SeatHold seatHold) throws InvalidPurchaseException;
+
+    /**
+     * Releases the seats of a held or pinned hold straight away. Confirmed holds are left alone.
+     *
+     * @param seatHold the hold to release.
+     */
+    void release(SeatHold seatHold);
+
+}
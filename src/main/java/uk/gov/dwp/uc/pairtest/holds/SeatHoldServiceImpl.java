@@ -0,0 +1,158 @@
+package uk.gov.dwp.uc.pairtest.holds;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+public class SeatHoldServiceImpl implements SeatHoldService {
+
+    //Could be defined in config
+    static final Duration DEFAULT_HOLD_TTL = Duration.ofMinutes(2);
+    static final Duration DEFAULT_PAYMENT_LEASE = Duration.ofMinutes(5);
+    static final long TICK_MILLIS = 10;
+
+    private final long holdTtlMillis;
+    private final long paymentLeaseMillis;
+    private final LongSupplier clock;
+    private final HierarchicalTimingWheel<SeatHold> expiryWheel;
+    private int availableSeats;
+
+
+    /**
+     * @param totalSeats the number of seats that can be held and confirmed.
+     */
+    public SeatHoldServiceImpl(int totalSeats) {
+        this(totalSeats, DEFAULT_HOLD_TTL, DEFAULT_PAYMENT_LEASE, System::currentTimeMillis);
+    }
+
+
+    /**
+     * @param totalSeats the number of seats that can be held and confirmed.
+     * @param holdTtl how long seats are held before being released automatically.
+     * @param clock the source of the current time in milliseconds.
+     */
+    public SeatHoldServiceImpl(int totalSeats, Duration holdTtl, LongSupplier clock) {
+        this(totalSeats, holdTtl, DEFAULT_PAYMENT_LEASE, clock);
+    }
+
+
+    /**
+     * @param totalSeats the number of seats that can be held and confirmed.
+     * @param holdTtl how long seats are held before being released automatically.
+     * @param paymentLease how long a pinned hold lasts, from when it is pinned, before
+     *                     being released automatically; longer than any payment call.
+     * @param clock the source of the current time in milliseconds.
+     */
+    public SeatHoldServiceImpl(int totalSeats, Duration holdTtl, Duration paymentLease, LongSupplier clock) {
+        this.availableSeats = totalSeats;
+        this.holdTtlMillis = holdTtl.toMillis();
+        this.paymentLeaseMillis = paymentLease.toMillis();
+        this.clock = clock;
+        this.expiryWheel = new HierarchicalTimingWheel<>(TICK_MILLIS, clock.getAsLong());
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized SeatHold holdSeats(long accountId, int totalSeats)
+            throws InvalidPurchaseException {
+
+        long now = clock.getAsLong();
+        expiryWheel.advance(now, this::expire);
+        takeSeats(accountId, totalSeats);
+
+        SeatHold seatHold = new SeatHold(accountId, totalSeats);
+        expiryWheel.schedule(seatHold, now + holdTtlMillis);
+        return seatHold;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void pin(SeatHold seatHold) throws InvalidPurchaseException {
+
+        long now = clock.getAsLong();
+        expiryWheel.advance(now, this::expire);
+        if (seatHold.state() == SeatHold.State.PINNED) {
+            return;
+        }
+        if (!expiryWheel.cancel(seatHold)) {
+            throw new InvalidPurchaseException("Seat hold for account {0} has already ended.",
+                    String.valueOf(seatHold.accountId()));
+        }
+        expiryWheel.schedule(seatHold, now + paymentLeaseMillis);
+        seatHold.setState(SeatHold.State.PINNED);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * If the hold has lapsed, its seats are taken again if they are still available.
+     */
+    @Override
+    public synchronized void confirm(SeatHold seatHold) throws InvalidPurchaseException {
+
+        expiryWheel.advance(clock.getAsLong(), this::expire);
+        if (seatHold.state() == SeatHold.State.CONFIRMED) {
+            return;
+        }
+        if (!expiryWheel.cancel(seatHold)) {
+            takeSeats(seatHold.accountId(), seatHold.seats());
+        }
+        seatHold.setState(SeatHold.State.CONFIRMED);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void release(SeatHold seatHold) {
+
+        if (expiryWheel.cancel(seatHold)) {
+            availableSeats += seatHold.seats();
+            seatHold.setState(SeatHold.State.RELEASED);
+        }
+        expiryWheel.advance(clock.getAsLong(), this::expire);
+    }
+
+
+    /**
+     * Releases any holds that have passed their deadline. Holds are also expired whenever
+     * seats are held or confirmed, so this only needs calling to free seats between purchases.
+     */
+    public synchronized void expireHolds() {
+        expiryWheel.advance(clock.getAsLong(), this::expire);
+    }
+
+
+    /**
+     * @return the number of seats neither held nor confirmed.
+     */
+    public synchronized int getAvailableSeats() {
+        return availableSeats;
+    }
+
+
+    private void takeSeats(long accountId, int totalSeats) throws InvalidPurchaseException {
+
+        if (totalSeats > availableSeats) {
+            throw new InvalidPurchaseException(
+                    "Account {0} requested {1} seats, but only {2} are available.",
+                    String.valueOf(accountId), totalSeats, availableSeats);
+        }
+        availableSeats -= totalSeats;
+    }
+
+
+    private void expire(SeatHold seatHold) {
+        availableSeats += seatHold.seats();
+        seatHold.setState(SeatHold.State.EXPIRED);
+    }
+
+}
@@ -0,0 +1,108 @@
+package uk.gov.dwp.uc.pairtest.intake;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue over a ring buffer
+ * (Dmitry Vyukov's design). Each slot carries a sequence number saying whether it is
+ * free to write or ready to read, so producers and consumers only contend on a CAS of
+ * their own position, and a full queue is detected without taking a lock.
+ *
+ * @param <E> the type of element held in the queue.
+ */
+class BoundedLaneQueue<E> {
+
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+
+    /**
+     * @param capacity the most elements the queue can hold, rounded up to a power of two.
+     */
+    BoundedLaneQueue(int capacity) {
+
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+
+    /**
+     * @return true if the element was added, false if the queue was full.
+     */
+    boolean offer(E element) {
+
+        long position = enqueuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+        elements.lazySet(index, element);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+
+    /**
+     * @return the element at the head of the queue, or null if the queue was empty.
+     */
+    E poll() {
+
+        long position = dequeuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        return element;
+    }
+
+
+    /**
+     * @return an estimate of the number of elements in the queue.
+     */
+    int size() {
+
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+
+    int capacity() {
+        return mask + 1;
+    }
+
+}
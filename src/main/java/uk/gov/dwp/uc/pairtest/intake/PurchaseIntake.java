@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.intake;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface PurchaseIntake {
+
+    /**
+     * Queues a purchase to be made by the ticket service.
+     *
+     * @param lane the lane to queue the purchase in.
+     * @param accountId the account to be used to pay for tickets.
+     * @param ticketTypeRequests an array of ticket requests that are to be purchased.
+     * @return a future completed once the purchase has been made, or completed exceptionally
+     * with the purchase's exception, or with a PurchaseRejectedException if it was shed.
+     */
+    CompletableFuture<Void> submit(PurchaseLane lane, Long accountId, TicketTypeRequest... ticketTypeRequests);
+
+}
@@ -0,0 +1,284 @@
+package uk.gov.dwp.uc.pairtest.intake;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queues purchases in bounded per-lane queues in front of the ticket service, and runs
+ * them on a fixed set of workers that take from the lanes by weight.
+ * <p>
+ * When demand exceeds what the gateways can take, purchases are turned away at the door
+ * with a pre-built exception, lowest priority lane first, instead of being accepted and
+ * left to time out. Purchases that have waited longer than the maximum queue delay are
+ * turned away rather than started, as their caller has most likely given up.
+ * <p>
+ * Each queued purchase releases a permit that a worker takes before polling the lanes,
+ * so idle workers block until there is work for them rather than waking to look.
+ */
+public class PurchaseIntakeImpl implements PurchaseIntake, AutoCloseable {
+
+    //Could be defined in config
+    static final Duration DEFAULT_MAX_QUEUE_DELAY = Duration.ofSeconds(5);
+
+    private static final PurchaseLane[] LANES = PurchaseLane.values();
+
+    private final TicketService ticketService;
+    private final long maxQueueDelayNanos;
+    private final BoundedLaneQueue<PendingPurchase>[] queues;
+    private final PurchaseRejectedException[] queueFullRejections;
+    private final PurchaseRejectedException queueDelayRejection;
+    private final PurchaseRejectedException closedRejection;
+    private final int totalCapacity;
+    private final PurchaseLane[] schedule;
+    private final Thread[] workers;
+    private final Semaphore queuedPurchases = new Semaphore(0);
+    private volatile boolean running;
+    private volatile boolean closed;
+
+
+    /**
+     * A queued purchase. Whoever claims it first, a worker to make it or close to turn it
+     * away, is the only one to complete its result.
+     */
+    private record PendingPurchase(Long accountId, TicketTypeRequest[] ticketTypeRequests,
+                                   long enqueuedNanos, CompletableFuture<Void> result,
+                                   AtomicBoolean claimed) {
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+
+    /**
+     * @param ticketService the service to make purchases with.
+     * @param workerThreads the number of purchases to make at once.
+     * @param laneCapacity the most purchases each lane can hold.
+     */
+    public PurchaseIntakeImpl(TicketService ticketService, int workerThreads, int laneCapacity) {
+        this(ticketService, workerThreads, laneCapacity, DEFAULT_MAX_QUEUE_DELAY);
+    }
+
+
+    /**
+     * @param ticketService the service to make purchases with.
+     * @param workerThreads the number of purchases to make at once.
+     * @param laneCapacity the most purchases each lane can hold.
+     * @param maxQueueDelay how long a purchase can wait in its lane before being turned away.
+     */
+    public PurchaseIntakeImpl(TicketService ticketService, int workerThreads, int laneCapacity,
+                              Duration maxQueueDelay) {
+
+        this.ticketService = ticketService;
+        this.maxQueueDelayNanos = maxQueueDelay.toNanos();
+        this.queues = newQueues(LANES.length);
+        this.queueFullRejections = new PurchaseRejectedException[LANES.length];
+        int capacity = 0;
+        for (PurchaseLane lane : LANES) {
+            queues[lane.ordinal()] = new BoundedLaneQueue<>(laneCapacity);
+            queueFullRejections[lane.ordinal()] = new PurchaseRejectedException(
+                    "Too many {0} purchases are waiting, please try again later.", lane);
+            capacity += queues[lane.ordinal()].capacity();
+        }
+        this.totalCapacity = capacity;
+        this.queueDelayRejection = new PurchaseRejectedException(
+                "Purchase waited longer than {0} ms to start, please try again later.",
+                maxQueueDelay.toMillis());
+        this.closedRejection = new PurchaseRejectedException("Purchases are no longer being taken.");
+        this.schedule = buildSchedule();
+        this.workers = new Thread[workerThreads];
+        for (int i = 0; i < workerThreads; i++) {
+            int firstTurn = i * schedule.length / workerThreads;
+            workers[i] = new Thread(() -> work(firstTurn), "purchase-intake-" + i);
+            workers[i].setDaemon(true);
+        }
+    }
+
+
+    /**
+     * Starts the workers taking purchases from the lanes.
+     */
+    public void start() {
+
+        running = true;
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Void> submit(PurchaseLane lane, Long accountId,
+                                          TicketTypeRequest... ticketTypeRequests) {
+
+        if (closed) {
+            return CompletableFuture.failedFuture(closedRejection);
+        }
+        BoundedLaneQueue<PendingPurchase> queue = queues[lane.ordinal()];
+        if (totalBacklog() >= lane.shedFraction() * totalCapacity) {
+            return CompletableFuture.failedFuture(queueFullRejections[lane.ordinal()]);
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        PendingPurchase pendingPurchase = new PendingPurchase(
+                accountId, ticketTypeRequests, System.nanoTime(), result, new AtomicBoolean());
+        if (!queue.offer(pendingPurchase)) {
+            return CompletableFuture.failedFuture(queueFullRejections[lane.ordinal()]);
+        }
+        queuedPurchases.release();
+        // close() may have drained the lanes between the check above and the offer.
+        if (closed && pendingPurchase.claim()) {
+            result.completeExceptionally(closedRejection);
+        }
+        return result;
+    }
+
+
+    /**
+     * Stops the workers, once they have finished their current purchase, and turns away
+     * any purchases still waiting. If the calling thread is interrupted while waiting for
+     * the workers, it still waits, and is left interrupted.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        running = false;
+        // Wake any workers waiting for work, so they see they are no longer running.
+        queuedPurchases.release(workers.length);
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (BoundedLaneQueue<PendingPurchase> queue : queues) {
+            PendingPurchase pendingPurchase;
+            while ((pendingPurchase = queue.poll()) != null) {
+                if (pendingPurchase.claim()) {
+                    pendingPurchase.result().completeExceptionally(closedRejection);
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * @return the number of purchases waiting in the given lane.
+     */
+    public int getBacklog(PurchaseLane lane) {
+        return queues[lane.ordinal()].size();
+    }
+
+
+    private int totalBacklog() {
+
+        int backlog = 0;
+        for (BoundedLaneQueue<PendingPurchase> queue : queues) {
+            backlog += queue.size();
+        }
+        return backlog;
+    }
+
+
+    private void work(int firstTurn) {
+
+        int turn = firstTurn;
+        while (running) {
+            queuedPurchases.acquireUninterruptibly();
+            if (!running) {
+                return;
+            }
+            PendingPurchase pendingPurchase = next(schedule[turn]);
+            turn = (turn + 1) % schedule.length;
+            if (pendingPurchase != null) {
+                purchase(pendingPurchase);
+            }
+        }
+    }
+
+
+    /**
+     * Takes from the scheduled lane, or if it is empty from the highest priority lane
+     * that is not, so no worker idles while there is work waiting.
+     */
+    private PendingPurchase next(PurchaseLane scheduledLane) {
+
+        PendingPurchase pendingPurchase = queues[scheduledLane.ordinal()].poll();
+        for (int i = 0; pendingPurchase == null && i < queues.length; i++) {
+            pendingPurchase = queues[i].poll();
+        }
+        return pendingPurchase;
+    }
+
+
+    /**
+     * Makes the purchase, completing its result however the purchase ends, so that not
+     * even an Error leaves a caller waiting or takes the worker down with it.
+     */
+    private void purchase(PendingPurchase pendingPurchase) {
+
+        if (!pendingPurchase.claim()) {
+            return;
+        }
+        if (System.nanoTime() - pendingPurchase.enqueuedNanos() > maxQueueDelayNanos) {
+            pendingPurchase.result().completeExceptionally(queueDelayRejection);
+            return;
+        }
+        try {
+            ticketService.purchaseTickets(pendingPurchase.accountId(), pendingPurchase.ticketTypeRequests());
+            pendingPurchase.result().complete(null);
+        } catch (Throwable e) {
+            pendingPurchase.result().completeExceptionally(e);
+        }
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private static <E> BoundedLaneQueue<E>[] newQueues(int count) {
+        return (BoundedLaneQueue<E>[]) new BoundedLaneQueue<?>[count];
+    }
+
+
+    /**
+     * Spreads each lane's turns through one round in proportion to its weight, using
+     * smooth weighted round robin, so a heavy lane does not take all its turns in a row.
+     */
+    private static PurchaseLane[] buildSchedule() {
+
+        int totalWeight = 0;
+        for (PurchaseLane lane : LANES) {
+            totalWeight += lane.weight();
+        }
+        PurchaseLane[] schedule = new PurchaseLane[totalWeight];
+        int[] current = new int[LANES.length];
+        for (int turn = 0; turn < totalWeight; turn++) {
+            int best = 0;
+            for (PurchaseLane lane : LANES) {
+                current[lane.ordinal()] += lane.weight();
+                if (current[lane.ordinal()] > current[best]) {
+                    best = lane.ordinal();
+                }
+            }
+            current[best] -= totalWeight;
+            schedule[turn] = LANES[best];
+        }
+        return schedule;
+    }
+
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.intake;
+
+/**
+ * The lanes purchases queue in, highest priority first.
+ * Workers take from each lane in proportion to its weight. Once the total backlog across
+ * all lanes reaches a lane's shed fraction of the total capacity, that lane's new purchases
+ * are turned away, so lower priority work is shed before the queues are full.
+ */
+public enum PurchaseLane {
+
+    PRIORITY(6, 1.0),
+    REGULAR(3, 0.8),
+    PARTNER(1, 0.5);
+
+    private final int weight;
+    private final double shedFraction;
+
+    PurchaseLane(int weight, double shedFraction) {
+        this.weight = weight;
+        this.shedFraction = shedFraction;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    public double shedFraction() {
+        return shedFraction;
+    }
+
+}
@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.limits;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+public interface AccountPurchaseLimiter {
+
+    /**
+     * Records a purchase against the account's rolling limits, if it fits within them.
+     *
+     * @param accountId the account making the purchase.
+     * @param totalTickets the number of tickets being purchased.
+     * @param totalAmountToPay the amount being spent on the tickets.
+     * @throws InvalidPurchaseException if the purchase would take the account over
+     * its rolling ticket or spend limit.
+     * @throws uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException if the account's
+     * usage cannot be tracked right now, so the purchase is turned away rather than let
+     * through unchecked.
+     */
+    void acquire(long accountId, int totalTickets, int totalAmountToPay) throws InvalidPurchaseException;
+
+    /**
+     * Gives back a purchase previously recorded by acquire, for when it could not be completed.
+     *
+     * @param accountId the account that made the purchase.
+     * @param totalTickets the number of tickets that were acquired.
+     * @param totalAmountToPay the amount that was acquired.
+     */
+    void release(long accountId, int totalTickets, int totalAmountToPay);
+
+}
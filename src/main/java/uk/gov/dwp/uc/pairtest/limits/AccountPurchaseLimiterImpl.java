@@ -0,0 +1,129 @@
+package uk.gov.dwp.uc.pairtest.limits;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+public class AccountPurchaseLimiterImpl implements AccountPurchaseLimiter {
+
+    //Could be defined in config
+    static final int DEFAULT_MAX_TICKETS_PER_WINDOW = 100;
+    static final int DEFAULT_MAX_SPEND_PER_WINDOW = 1000;
+    static final Duration DEFAULT_WINDOW = Duration.ofHours(24);
+    static final int DEFAULT_BUCKETS_PER_WINDOW = 12;
+    static final int DEFAULT_MAX_TRACKED_ACCOUNTS = 2_000_000;
+    private static final int SEGMENTS = 16;
+
+    private final int maxTicketsPerWindow;
+    private final int maxSpendPerWindow;
+    private final long windowHours;
+    private final long bucketMillis;
+    private final LongSupplier clock;
+    private final RollingCounterTable[] segments;
+
+
+    public AccountPurchaseLimiterImpl() {
+        this(DEFAULT_MAX_TICKETS_PER_WINDOW, DEFAULT_MAX_SPEND_PER_WINDOW, DEFAULT_WINDOW,
+                DEFAULT_BUCKETS_PER_WINDOW, DEFAULT_MAX_TRACKED_ACCOUNTS, System::currentTimeMillis);
+    }
+
+
+    /**
+     * @param maxTicketsPerWindow the most tickets an account may buy within the window.
+     * @param maxSpendPerWindow the most an account may spend within the window.
+     * @param window the length of the rolling window.
+     * @param bucketsPerWindow how many time buckets the window is split into; more buckets
+     *                         give a smoother roll-off at the cost of memory per account.
+     * @param maxTrackedAccounts the most accounts held in memory before idle ones are evicted;
+     *                           once every tracked account is active, new accounts are turned away.
+     * @param clock the source of the current time in milliseconds.
+     */
+    public AccountPurchaseLimiterImpl(int maxTicketsPerWindow, int maxSpendPerWindow, Duration window,
+                                      int bucketsPerWindow, int maxTrackedAccounts, LongSupplier clock) {
+
+        this.maxTicketsPerWindow = maxTicketsPerWindow;
+        this.maxSpendPerWindow = maxSpendPerWindow;
+        this.windowHours = window.toHours();
+        this.bucketMillis = Math.max(1, window.toMillis() / bucketsPerWindow);
+        this.clock = clock;
+        this.segments = new RollingCounterTable[SEGMENTS];
+        int accountsPerSegment = Math.max(1, (maxTrackedAccounts + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new RollingCounterTable(bucketsPerWindow, accountsPerSegment);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @throws InvalidPurchaseException if the account id is not positive, or the purchase
+     * would exceed the number of tickets or the amount an account can spend within the
+     * rolling window.
+     * @throws PurchaseRejectedException if the account is not yet tracked and every
+     * tracked account still has usage within the window.
+     */
+    @Override
+    public void acquire(long accountId, int totalTickets, int totalAmountToPay)
+            throws InvalidPurchaseException {
+
+        // The table marks free slots with account id 0, so it must never be given one.
+        if (accountId <= 0) {
+            throw new InvalidPurchaseException("Account id {0} is invalid.", String.valueOf(accountId));
+        }
+        RollingCounterTable segment = segmentFor(accountId);
+        int result;
+        synchronized (segment) {
+            result = segment.tryAdd(accountId, currentBucket(), totalTickets, totalAmountToPay,
+                    maxTicketsPerWindow, maxSpendPerWindow);
+        }
+
+        if (result == RollingCounterTable.TICKET_LIMIT_EXCEEDED) {
+            throw new InvalidPurchaseException(
+                    "Account {0} cannot purchase {1} more tickets, the limit is {2} tickets per {3} hours.",
+                    String.valueOf(accountId), totalTickets, maxTicketsPerWindow, windowHours);
+        }
+        if (result == RollingCounterTable.SPEND_LIMIT_EXCEEDED) {
+            throw new InvalidPurchaseException(
+                    "Account {0} cannot spend {1} more, the limit is {2} per {3} hours.",
+                    String.valueOf(accountId), totalAmountToPay, maxSpendPerWindow, windowHours);
+        }
+        if (result == RollingCounterTable.TABLE_FULL) {
+            throw new PurchaseRejectedException(
+                    "Account {0} cannot be tracked against purchase limits right now, try again later.",
+                    String.valueOf(accountId));
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * Account ids that are not positive are ignored, as acquire never records them.
+     */
+    @Override
+    public void release(long accountId, int totalTickets, int totalAmountToPay) {
+
+        if (accountId <= 0) {
+            return;
+        }
+        RollingCounterTable segment = segmentFor(accountId);
+        synchronized (segment) {
+            segment.subtract(accountId, currentBucket(), totalTickets, totalAmountToPay);
+        }
+    }
+
+
+    private long currentBucket() {
+        return clock.getAsLong() / bucketMillis;
+    }
+
+
+    /**
+     * Picks a segment from the high bits of the hash, as each table indexes on the low bits.
+     */
+    private RollingCounterTable segmentFor(long accountId) {
+        return segments[(int) (RollingCounterTable.mix(accountId) >>> 60) & (SEGMENTS - 1)];
+    }
+
+}
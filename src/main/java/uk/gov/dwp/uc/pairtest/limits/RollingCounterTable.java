@@ -0,0 +1,323 @@
+package uk.gov.dwp.uc.pairtest.limits;
+
+/**
+ * An open-addressing hash table of account id to rolling ticket and spend counters.
+ * Keys and counters are held in flat primitive arrays, so millions of accounts cost a
+ * handful of large arrays rather than millions of boxed keys and entry objects.
+ * <p>
+ * Each account has a ring of time buckets; a bucket is cleared when the ring comes back
+ * round to it, so the sum over the ring is the usage within the rolling window.
+ * The table grows up to a fixed maximum number of accounts and then evicts idle accounts
+ * to make room, keeping memory bounded. Accounts with usage still in the window are never
+ * evicted, as that would reset their limits; if no idle account can be found, the new
+ * account is turned away instead.
+ * <p>
+ * Not thread safe; callers are expected to guard each table with its own lock.
+ */
+class RollingCounterTable {
+
+    static final int ACCEPTED = 0;
+    static final int TICKET_LIMIT_EXCEEDED = 1;
+    static final int SPEND_LIMIT_EXCEEDED = 2;
+    static final int TABLE_FULL = 3;
+
+    private static final long EMPTY = 0L;
+    private static final int INITIAL_CAPACITY = 1024;
+    //Could be defined in config
+    static final int MAX_EVICTION_SCAN = 1024;
+
+    private final int bucketCount;
+    private final int maxEntries;
+    private final int maxCapacity;
+
+    private long[] keys;
+    private long[] lastBuckets;
+    private int[] tickets;
+    private int[] spend;
+    private int mask;
+    private int size;
+    private int evictionHand;
+
+
+    /**
+     * @param bucketCount the number of time buckets making up the rolling window.
+     * @param maxEntries the maximum number of accounts to hold before evicting.
+     */
+    RollingCounterTable(int bucketCount, int maxEntries) {
+        this.bucketCount = bucketCount;
+        this.maxEntries = maxEntries;
+        this.maxCapacity = tableSizeFor(maxEntries + maxEntries / 3 + 1);
+        allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+    }
+
+
+    /**
+     * Adds the given tickets and spend to the account's current bucket, as long as the
+     * account's totals over the window stay within the limits.
+     *
+     * @param key the account id, must be greater than zero.
+     * @param bucket the current time bucket number.
+     * @return ACCEPTED, TICKET_LIMIT_EXCEEDED, SPEND_LIMIT_EXCEEDED, or TABLE_FULL if the
+     * account is new and no idle account could be evicted to make room for it.
+     */
+    int tryAdd(long key, long bucket, int addTickets, int addSpend, int maxTickets, int maxSpend) {
+
+        int slot = find(key);
+        long ticketTotal = addTickets;
+        long spendTotal = addSpend;
+        if (slot >= 0) {
+            expireBuckets(slot, bucket);
+            int base = slot * bucketCount;
+            for (int i = base; i < base + bucketCount; i++) {
+                ticketTotal += tickets[i];
+                spendTotal += spend[i];
+            }
+        }
+
+        if (ticketTotal > maxTickets) {
+            return TICKET_LIMIT_EXCEEDED;
+        }
+        if (spendTotal > maxSpend) {
+            return SPEND_LIMIT_EXCEEDED;
+        }
+
+        if (slot < 0) {
+            slot = insert(key, bucket);
+            if (slot < 0) {
+                return TABLE_FULL;
+            }
+        }
+        int index = slot * bucketCount + (int) (bucket % bucketCount);
+        tickets[index] += addTickets;
+        spend[index] += addSpend;
+        return ACCEPTED;
+    }
+
+
+    /**
+     * Takes the given tickets and spend back off the account, starting with the current
+     * bucket and working back through older ones.
+     *
+     * @param key the account id.
+     * @param bucket the current time bucket number.
+     */
+    void subtract(long key, long bucket, int removeTickets, int removeSpend) {
+
+        int slot = find(key);
+        if (slot < 0) {
+            return;
+        }
+        expireBuckets(slot, bucket);
+        int base = slot * bucketCount;
+        for (int i = 0; i < bucketCount && (removeTickets > 0 || removeSpend > 0); i++) {
+            int index = base + (int) Math.floorMod(bucket - i, (long) bucketCount);
+            int ticketsTaken = Math.min(tickets[index], removeTickets);
+            int spendTaken = Math.min(spend[index], removeSpend);
+            tickets[index] -= ticketsTaken;
+            spend[index] -= spendTaken;
+            removeTickets -= ticketsTaken;
+            removeSpend -= spendTaken;
+        }
+    }
+
+
+    int size() {
+        return size;
+    }
+
+
+    int capacity() {
+        return keys.length;
+    }
+
+
+    /**
+     * Clears any buckets the ring has come back round to since the account was last used.
+     */
+    private void expireBuckets(int slot, long bucket) {
+
+        long last = lastBuckets[slot];
+        if (bucket <= last) {
+            return;
+        }
+        int base = slot * bucketCount;
+        if (bucket - last >= bucketCount) {
+            clearCounters(slot);
+        } else {
+            for (long b = last + 1; b <= bucket; b++) {
+                int index = base + (int) (b % bucketCount);
+                tickets[index] = 0;
+                spend[index] = 0;
+            }
+        }
+        lastBuckets[slot] = bucket;
+    }
+
+
+    private int find(long key) {
+
+        int slot = indexFor(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+
+    /**
+     * @return the slot the key was inserted at, or -1 if the table is full and no idle
+     * account could be evicted.
+     */
+    private int insert(long key, long bucket) {
+
+        if (size >= maxEntries) {
+            if (!evictIdle(bucket)) {
+                return -1;
+            }
+        } else if (size >= keys.length - (keys.length >>> 2) && keys.length < maxCapacity) {
+            resize(keys.length << 1);
+        }
+
+        int slot = indexFor(key);
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        lastBuckets[slot] = bucket;
+        size++;
+        return slot;
+    }
+
+
+    /**
+     * Evicts one account that has been idle for the whole window, and so has nothing left
+     * to count. The scan carries on from where the last one stopped and looks at no more
+     * than MAX_EVICTION_SCAN slots, so an insert into a full table stays cheap even when
+     * every account is active.
+     *
+     * @return true if an idle account was evicted.
+     */
+    private boolean evictIdle(long bucket) {
+
+        int limit = Math.min(keys.length, MAX_EVICTION_SCAN);
+        for (int scanned = 0; scanned < limit; scanned++) {
+            int slot = evictionHand;
+            evictionHand = (evictionHand + 1) & mask;
+            if (keys[slot] != EMPTY && bucket - lastBuckets[slot] >= bucketCount) {
+                removeAt(slot);
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Removes the entry at the given slot, shifting later entries in the probe sequence
+     * back so that lookups never need tombstones.
+     */
+    private void removeAt(int slot) {
+
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long key = keys[next];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = indexFor(key);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                moveEntry(next, gap);
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        lastBuckets[gap] = 0;
+        clearCounters(gap);
+        size--;
+    }
+
+
+    private void moveEntry(int from, int to) {
+
+        keys[to] = keys[from];
+        lastBuckets[to] = lastBuckets[from];
+        System.arraycopy(tickets, from * bucketCount, tickets, to * bucketCount, bucketCount);
+        System.arraycopy(spend, from * bucketCount, spend, to * bucketCount, bucketCount);
+    }
+
+
+    private void clearCounters(int slot) {
+
+        int base = slot * bucketCount;
+        for (int i = base; i < base + bucketCount; i++) {
+            tickets[i] = 0;
+            spend[i] = 0;
+        }
+    }
+
+
+    private void resize(int newCapacity) {
+
+        long[] oldKeys = keys;
+        long[] oldLastBuckets = lastBuckets;
+        int[] oldTickets = tickets;
+        int[] oldSpend = spend;
+
+        allocate(newCapacity);
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            long key = oldKeys[oldSlot];
+            if (key == EMPTY) {
+                continue;
+            }
+            int slot = indexFor(key);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            lastBuckets[slot] = oldLastBuckets[oldSlot];
+            System.arraycopy(oldTickets, oldSlot * bucketCount, tickets, slot * bucketCount, bucketCount);
+            System.arraycopy(oldSpend, oldSlot * bucketCount, spend, slot * bucketCount, bucketCount);
+        }
+        evictionHand = 0;
+    }
+
+
+    private void allocate(int capacity) {
+
+        keys = new long[capacity];
+        lastBuckets = new long[capacity];
+        tickets = new int[capacity * bucketCount];
+        spend = new int[capacity * bucketCount];
+        mask = capacity - 1;
+    }
+
+
+    private int indexFor(long key) {
+        return (int) mix(key) & mask;
+    }
+
+
+    /**
+     * Spreads sequential account ids across the table (the MurmurHash3 finaliser).
+     */
+    static long mix(long key) {
+
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+
+    private static int tableSizeFor(int entries) {
+        return Math.max(2, Integer.highestOneBit(entries - 1) << 1);
+    }
+
+}
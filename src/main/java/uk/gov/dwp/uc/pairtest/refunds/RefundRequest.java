@@ -0,0 +1,13 @@
+package uk.gov.dwp.uc.pairtest.refunds;
+
+/**
+ * Immutable Object
+ *
+ * @param accountId the account that may have been charged.
+ * @param totalTickets the number of tickets in the purchase.
+ * @param totalAmountPaid the amount that may have been charged.
+ * @param reason why the purchase was not completed.
+ * @param requestedAtMillis when the refund was requested.
+ */
+public record RefundRequest(long accountId, int totalTickets, int totalAmountPaid, String reason, long requestedAtMillis) {
+}
@@ -0,0 +1,18 @@
+package uk.gov.dwp.uc.pairtest.refunds;
+
+public interface RefundService {
+
+    /**
+     * Records that an account may have been charged for a purchase that was not completed,
+     * so the payment can be refunded, or reversed if it turns out to have gone through.
+     *
+     * The purchase keeps counting against the account's rolling limits until the refund is settled.
+     *
+     * @param accountId the account that may have been charged.
+     * @param totalTickets the number of tickets in the purchase.
+     * @param totalAmountPaid the amount that may have been charged.
+     * @param cause why the purchase was not completed.
+     */
+    void requestRefund(long accountId, int totalTickets, int totalAmountPaid, RuntimeException cause);
+
+}
@@ -0,0 +1,79 @@
+package uk.gov.dwp.uc.pairtest.refunds;
+
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Queues refund requests until they are drained and settled with the payment gateway,
+ * which has no refund call of its own. Settling a request gives the purchase back to the
+ * account's rolling limits.
+ */
+public class RefundServiceImpl implements RefundService {
+
+    private final Queue<RefundRequest> pendingRefunds = new ConcurrentLinkedQueue<>();
+    private final AccountPurchaseLimiter accountPurchaseLimiter;
+    private final LongSupplier clock;
+
+
+    /**
+     * @param accountPurchaseLimiter the limiter purchases were acquired from, to give them back on settling.
+     */
+    public RefundServiceImpl(AccountPurchaseLimiter accountPurchaseLimiter) {
+        this(accountPurchaseLimiter, System::currentTimeMillis);
+    }
+
+
+    /**
+     * @param accountPurchaseLimiter the limiter purchases were acquired from, to give them back on settling.
+     * @param clock the source of the current time in milliseconds.
+     */
+    public RefundServiceImpl(AccountPurchaseLimiter accountPurchaseLimiter, LongSupplier clock) {
+        this.accountPurchaseLimiter = accountPurchaseLimiter;
+        this.clock = clock;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void requestRefund(long accountId, int totalTickets, int totalAmountPaid, RuntimeException cause) {
+        pendingRefunds.add(new RefundRequest(accountId, totalTickets, totalAmountPaid,
+                String.valueOf(cause.getMessage()), clock.getAsLong()));
+    }
+
+
+    /**
+     * Takes every refund request made so far, for settling.
+     *
+     * @return the refund requests, oldest first.
+     */
+    public List<RefundRequest> drainRefundRequests() {
+
+        List<RefundRequest> refundRequests = new ArrayList<>();
+        RefundRequest refundRequest;
+        while ((refundRequest = pendingRefunds.poll()) != null) {
+            refundRequests.add(refundRequest);
+        }
+        return refundRequests;
+    }
+
+
+    /**
+     * Marks a drained refund request as settled, once the payment has been refunded or
+     * found never to have gone through, so the purchase no longer counts against the
+     * account's rolling limits.
+     *
+     * @param refundRequest a request taken by drainRefundRequests.
+     */
+    public void settleRefund(RefundRequest refundRequest) {
+        accountPurchaseLimiter.release(refundRequest.accountId(), refundRequest.totalTickets(),
+                refundRequest.totalAmountPaid());
+    }
+
+}
@@ -0,0 +1,23 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import java.util.random.RandomGenerator;
+
+class FixedLatency implements LatencyDistribution {
+
+    private final long latencyNanos;
+
+
+    FixedLatency(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long sampleNanos(RandomGenerator random) {
+        return latencyNanos;
+    }
+
+}
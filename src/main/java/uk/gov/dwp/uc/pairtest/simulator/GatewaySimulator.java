@@ -0,0 +1,203 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import uk.gov.dwp.uc.pairtest.exception.GatewayException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayTimeoutException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Stands in for a third party gateway, so the ticket service can be load tested and
+ * capacity planned offline. Each call is turned away if the gateway is at its concurrency
+ * limit or throughput cap; otherwise it waits out a latency drawn from the configured
+ * distribution, then succeeds, fails, or times out at the configured rates.
+ * <p>
+ * Each call draws from its own random generator, seeded from the config's seed and the
+ * call's sequence number, so a run that makes its calls in a deterministic order, such as
+ * from a single thread, is reproducible call by call. With concurrent callers, which call
+ * gets which sequence number depends on how the threads interleave, so only the mix of
+ * latencies and outcomes across the run is reproducible.
+ */
+public class GatewaySimulator {
+
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+    private static final double NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final String name;
+    private final GatewaySimulatorConfig config;
+    private final LongConsumer sleeper;
+    private final LongSupplier nanoClock;
+    private final Semaphore concurrentCalls;
+    private final AtomicLong callSequence = new AtomicLong();
+
+    // Token bucket for the throughput cap, guarded by this.
+    private final double burstCalls;
+    private double availableCalls;
+    private long lastRefillNanos;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+
+    /**
+     * @param name the gateway's name, for exception messages.
+     * @param config the gateway's behaviour.
+     */
+    public GatewaySimulator(String name, GatewaySimulatorConfig config) {
+        this(name, config, GatewaySimulator::sleep, System::nanoTime);
+    }
+
+
+    /**
+     * @param name the gateway's name, for exception messages.
+     * @param config the gateway's behaviour.
+     * @param sleeper waits out each call's latency, given in nanoseconds.
+     * @param nanoClock the source of the current time in nanoseconds, for the throughput cap.
+     */
+    public GatewaySimulator(String name, GatewaySimulatorConfig config,
+                            LongConsumer sleeper, LongSupplier nanoClock) {
+
+        this.name = name;
+        this.config = config;
+        this.sleeper = sleeper;
+        this.nanoClock = nanoClock;
+        this.concurrentCalls = config.maxConcurrentCalls() == Integer.MAX_VALUE
+                ? null : new Semaphore(config.maxConcurrentCalls());
+        this.burstCalls = Math.max(1, config.maxCallsPerSecond());
+        this.availableCalls = burstCalls;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+
+    /**
+     * Makes a simulated call to the gateway, returning once it has succeeded.
+     *
+     * @throws GatewayUnavailableException if the gateway is at its throughput cap or concurrency limit.
+     * @throws GatewayTimeoutException if the call times out, or the calling thread is
+     * interrupted while waiting for an answer.
+     * @throws GatewayException if the call fails.
+     */
+    public void call() throws GatewayException {
+
+        // The concurrency limit is checked first, so calls it turns away do not use up throughput.
+        if (concurrentCalls != null && !concurrentCalls.tryAcquire()) {
+            rejections.increment();
+            throw new GatewayUnavailableException("{0} is at its limit of {1} concurrent calls.",
+                    name, config.maxConcurrentCalls());
+        }
+        try {
+            if (!tryAdmitCall()) {
+                rejections.increment();
+                throw new GatewayUnavailableException("{0} is over its limit of {1} calls per second.",
+                        name, config.maxCallsPerSecond());
+            }
+            attempt();
+        } finally {
+            if (concurrentCalls != null) {
+                concurrentCalls.release();
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of calls attempted, not counting those turned away.
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+
+    /**
+     * @return the number of calls that failed.
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+
+    /**
+     * @return the number of calls that timed out.
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+
+    /**
+     * @return the number of calls turned away by the throughput cap or concurrency limit.
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+
+    private void attempt() {
+
+        SplittableRandom random = new SplittableRandom(
+                config.seed() + callSequence.getAndIncrement() * SEED_INCREMENT);
+        calls.increment();
+        double outcome = random.nextDouble();
+        long latencyNanos = config.latency().sampleNanos(random);
+        long timeoutNanos = config.timeout().toNanos();
+
+        if (outcome < config.timeoutRate() || latencyNanos >= timeoutNanos) {
+            sleeper.accept(timeoutNanos);
+            timeouts.increment();
+            throw new GatewayTimeoutException("{0} did not answer within {1} ms.",
+                    name, config.timeout().toMillis());
+        }
+        sleeper.accept(latencyNanos);
+        if (Thread.currentThread().isInterrupted()) {
+            timeouts.increment();
+            throw new GatewayTimeoutException("{0} call was interrupted before it was answered.", name);
+        }
+        if (outcome < config.timeoutRate() + config.errorRate()) {
+            errors.increment();
+            throw new GatewayException("{0} failed the call.", name);
+        }
+    }
+
+
+    private synchronized boolean tryAdmitCall() {
+
+        if (config.maxCallsPerSecond() == Double.POSITIVE_INFINITY) {
+            return true;
+        }
+        long now = nanoClock.getAsLong();
+        if (now > lastRefillNanos) {
+            availableCalls = Math.min(burstCalls,
+                    availableCalls + (now - lastRefillNanos) * config.maxCallsPerSecond() / NANOS_PER_SECOND);
+            lastRefillNanos = now;
+        }
+        if (availableCalls < 1) {
+            return false;
+        }
+        availableCalls--;
+        return true;
+    }
+
+
+    /**
+     * Returns early if the thread is interrupted, leaving it interrupted, so the call is abandoned.
+     */
+    private static void sleep(long nanos) {
+
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import java.time.Duration;
+
+/**
+ * Immutable Object
+ *
+ * @param latency the distribution each call's latency is drawn from.
+ * @param errorRate the share of calls, from 0 to 1, that fail after their latency.
+ * @param timeoutRate the share of calls, from 0 to 1, that hang until the timeout.
+ * @param timeout how long a call waits before timing out; calls drawing a longer latency time out too.
+ * @param maxConcurrentCalls the number of calls the gateway takes at once before turning calls away.
+ * @param maxCallsPerSecond the rate the gateway takes calls at before turning calls away,
+ *                          with up to a second's worth let through in a burst.
+ * @param seed the seed the simulation is drawn from; runs with the same seed and the same
+ *             order of calls see the same latencies and failures.
+ */
+public record GatewaySimulatorConfig(LatencyDistribution latency, double errorRate, double timeoutRate,
+                                     Duration timeout, int maxConcurrentCalls, double maxCallsPerSecond,
+                                     long seed) {
+
+    //Could be defined in config
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+
+    public GatewaySimulatorConfig {
+
+        if (errorRate < 0 || timeoutRate < 0 || errorRate + timeoutRate > 1) {
+            throw new IllegalArgumentException("Error and timeout rates must be between 0 and 1 in total");
+        }
+        if (timeout.isNegative() || timeout.isZero() || maxConcurrentCalls < 1 || !(maxCallsPerSecond > 0)) {
+            throw new IllegalArgumentException("Timeout, concurrency limit and throughput cap must be positive");
+        }
+    }
+
+
+    /**
+     * @return a config for a gateway that never fails, has no limits, and times out after 30 seconds.
+     */
+    public static GatewaySimulatorConfig of(LatencyDistribution latency, long seed) {
+        return new GatewaySimulatorConfig(latency, 0, 0, DEFAULT_TIMEOUT,
+                Integer.MAX_VALUE, Double.POSITIVE_INFINITY, seed);
+    }
+
+
+    public GatewaySimulatorConfig withErrorRate(double errorRate) {
+        return new GatewaySimulatorConfig(latency, errorRate, timeoutRate, timeout,
+                maxConcurrentCalls, maxCallsPerSecond, seed);
+    }
+
+
+    public GatewaySimulatorConfig withTimeouts(double timeoutRate, Duration timeout) {
+        return new GatewaySimulatorConfig(latency, errorRate, timeoutRate, timeout,
+                maxConcurrentCalls, maxCallsPerSecond, seed);
+    }
+
+
+    public GatewaySimulatorConfig withMaxConcurrentCalls(int maxConcurrentCalls) {
+        return new GatewaySimulatorConfig(latency, errorRate, timeoutRate, timeout,
+                maxConcurrentCalls, maxCallsPerSecond, seed);
+    }
+
+
+    public GatewaySimulatorConfig withMaxCallsPerSecond(double maxCallsPerSecond) {
+        return new GatewaySimulatorConfig(latency, errorRate, timeoutRate, timeout,
+                maxConcurrentCalls, maxCallsPerSecond, seed);
+    }
+
+}
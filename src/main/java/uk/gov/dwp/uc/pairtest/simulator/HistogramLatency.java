@@ -0,0 +1,55 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import java.util.random.RandomGenerator;
+
+class HistogramLatency implements LatencyDistribution {
+
+    private final long[] upperBoundNanos;
+    private final long[] cumulativeCounts;
+
+
+    HistogramLatency(long[] upperBoundNanos, long[] counts) {
+
+        if (upperBoundNanos.length == 0 || upperBoundNanos.length != counts.length) {
+            throw new IllegalArgumentException("Histogram needs a count for each of at least one bucket");
+        }
+        this.upperBoundNanos = upperBoundNanos.clone();
+        this.cumulativeCounts = new long[counts.length];
+        long total = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] < 0 || upperBoundNanos[bucket] < 0 ||
+                    (bucket > 0 && upperBoundNanos[bucket] <= upperBoundNanos[bucket - 1])) {
+                throw new IllegalArgumentException("Histogram bounds must increase and counts must not be negative");
+            }
+            total += counts[bucket];
+            cumulativeCounts[bucket] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Histogram has no recorded calls");
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long sampleNanos(RandomGenerator random) {
+
+        long pick = random.nextLong(cumulativeCounts[cumulativeCounts.length - 1]);
+        // The first bucket whose cumulative count is above the pick; empty buckets are never chosen.
+        int bucket = 0;
+        int last = cumulativeCounts.length - 1;
+        while (bucket < last) {
+            int middle = (bucket + last) >>> 1;
+            if (cumulativeCounts[middle] > pick) {
+                last = middle;
+            } else {
+                bucket = middle + 1;
+            }
+        }
+        long lowerBound = bucket == 0 ? 0 : upperBoundNanos[bucket - 1];
+        return lowerBound + random.nextLong(upperBoundNanos[bucket] - lowerBound + 1);
+    }
+
+}
@@ -0,0 +1,100 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The distribution a simulated gateway draws each call's latency from.
+ */
+public interface LatencyDistribution {
+
+    /**
+     * Draws a latency.
+     *
+     * @param random the source of randomness for the call, so that runs are reproducible.
+     * @return the latency in nanoseconds.
+     */
+    long sampleNanos(RandomGenerator random);
+
+
+    /**
+     * @return a distribution where every call takes the same time.
+     */
+    static LatencyDistribution fixed(Duration latency) {
+        return new FixedLatency(latency.toNanos());
+    }
+
+
+    /**
+     * A lognormal distribution, the usual shape of service latency: most calls close to the
+     * median, with a long tail of slow ones.
+     *
+     * @param median the latency half of all calls are faster than.
+     * @param sigma the standard deviation of the log of the latency; 0.5 gives a 99th
+     *              percentile of about three times the median.
+     * @return a lognormal distribution.
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        return new LogNormalLatency(median.toNanos(), sigma);
+    }
+
+
+    /**
+     * A distribution replayed from a recorded latency histogram. Each call picks a bucket in
+     * proportion to its count, then a latency spread evenly across the bucket.
+     *
+     * @param bucketUpperBounds the upper bound of each bucket, in increasing order; each
+     *                          bucket starts where the previous one ends, the first at 0.
+     * @param counts the number of calls recorded in each bucket.
+     * @return a distribution with the shape of the histogram.
+     * @throws IllegalArgumentException if the bounds are not increasing, or there are no counts.
+     */
+    static LatencyDistribution replay(Duration[] bucketUpperBounds, long[] counts) {
+
+        long[] upperBoundNanos = new long[bucketUpperBounds.length];
+        for (int bucket = 0; bucket < bucketUpperBounds.length; bucket++) {
+            upperBoundNanos[bucket] = bucketUpperBounds[bucket].toNanos();
+        }
+        return new HistogramLatency(upperBoundNanos, counts);
+    }
+
+
+    /**
+     * Reads a recorded latency histogram, one bucket per line as the bucket's upper bound in
+     * microseconds and the number of calls recorded in it, separated by a comma. Blank lines
+     * and lines starting with # are skipped.
+     *
+     * @param histogram the recorded histogram.
+     * @return a distribution with the shape of the histogram.
+     * @throws IOException if the histogram cannot be read.
+     * @throws IllegalArgumentException if a line is not a bound and a count.
+     */
+    static LatencyDistribution replay(InputStream histogram) throws IOException {
+
+        List<Duration> bounds = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(histogram, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s*,\\s*");
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("Histogram line is not a bound and a count: " + line);
+            }
+            bounds.add(Duration.ofNanos(Long.parseLong(fields[0]) * 1_000));
+            counts.add(Long.parseLong(fields[1]));
+        }
+        return replay(bounds.toArray(new Duration[0]), counts.stream().mapToLong(Long::longValue).toArray());
+    }
+
+}
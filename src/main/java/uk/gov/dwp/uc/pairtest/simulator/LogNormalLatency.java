@@ -0,0 +1,29 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import java.util.random.RandomGenerator;
+
+class LogNormalLatency implements LatencyDistribution {
+
+    private final double logMedian;
+    private final double sigma;
+
+
+    LogNormalLatency(long medianNanos, double sigma) {
+
+        if (medianNanos <= 0 || sigma < 0) {
+            throw new IllegalArgumentException("Lognormal latency needs a positive median and a non-negative sigma");
+        }
+        this.logMedian = Math.log(medianNanos);
+        this.sigma = sigma;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long sampleNanos(RandomGenerator random) {
+        return (long) Math.exp(logMedian + sigma * random.nextGaussian());
+    }
+
+}
@@ -0,0 +1,41 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * A SeatReservationService that reserves no seats, but behaves like the seat booking
+ * service as configured: slow, failing, timing out or turning calls away.
+ */
+public class SimulatedSeatReservationService implements SeatReservationService {
+
+    private final GatewaySimulator gatewaySimulator;
+
+
+    public SimulatedSeatReservationService(GatewaySimulatorConfig config) {
+        this(new GatewaySimulator("Seat booking service", config));
+    }
+
+
+    public SimulatedSeatReservationService(GatewaySimulator gatewaySimulator) {
+        this.gatewaySimulator = gatewaySimulator;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @throws uk.gov.dwp.uc.pairtest.exception.GatewayException if the simulated call fails.
+     */
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        gatewaySimulator.call();
+    }
+
+
+    /**
+     * @return the simulator, for its call counts.
+     */
+    public GatewaySimulator getGatewaySimulator() {
+        return gatewaySimulator;
+    }
+
+}
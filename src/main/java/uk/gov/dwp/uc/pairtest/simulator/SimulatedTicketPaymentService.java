@@ -0,0 +1,41 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+/**
+ * A TicketPaymentService that takes no payment, but behaves like the payment gateway
+ * as configured: slow, failing, timing out or turning calls away.
+ */
+public class SimulatedTicketPaymentService implements TicketPaymentService {
+
+    private final GatewaySimulator gatewaySimulator;
+
+
+    public SimulatedTicketPaymentService(GatewaySimulatorConfig config) {
+        this(new GatewaySimulator("Payment gateway", config));
+    }
+
+
+    public SimulatedTicketPaymentService(GatewaySimulator gatewaySimulator) {
+        this.gatewaySimulator = gatewaySimulator;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @throws uk.gov.dwp.uc.pairtest.exception.GatewayException if the simulated call fails.
+     */
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        gatewaySimulator.call();
+    }
+
+
+    /**
+     * @return the simulator, for its call counts.
+     */
+    public GatewaySimulator getGatewaySimulator() {
+        return gatewaySimulator;
+    }
+
+}
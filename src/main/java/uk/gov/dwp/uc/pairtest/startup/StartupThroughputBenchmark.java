@@ -0,0 +1,98 @@
+package uk.gov.dwp.uc.pairtest.startup;
+
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelperImpl;
+import uk.gov.dwp.uc.pairtest.holds.SeatHoldServiceImpl;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiterImpl;
+import uk.gov.dwp.uc.pairtest.refunds.RefundServiceImpl;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Measures how long a fresh JVM takes to reach peak purchase throughput.
+ * <p>
+ * Purchases are run back to back and counted in fixed windows. Time-to-peak is the time
+ * from JVM start to the end of the first window that reaches 90% of the best window.
+ * Run with "mvn -Pstartup-benchmark verify", adding -Pappcds to use the class data
+ * sharing archive, and -Dbenchmark.warmUp=true to run the warm-up first.
+ */
+public class StartupThroughputBenchmark {
+
+    private static final long WINDOW_NANOS = Duration.ofMillis(100).toNanos();
+    private static final double PEAK_FRACTION = 0.9;
+    private static final int BENCHMARK_ACCOUNTS = 10_000;
+
+    private static final TicketTypeRequest[] PURCHASE = {
+            new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2),
+            new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 1),
+            new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1)};
+
+    public static void main(String[] args) {
+
+        int seconds = Integer.getInteger("benchmark.seconds", 10);
+        boolean warmUp = Boolean.getBoolean("benchmark.warmUp");
+        long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        TicketTypeRegistry ticketTypeRegistry = TicketTypeRegistry.loadDefault();
+
+        long warmUpStart = System.nanoTime();
+        if (warmUp) {
+            new TicketServiceWarmUp(TicketServiceWarmUp::defaultTicketPrice, ticketTypeRegistry,
+                    TicketServiceWarmUp.DEFAULT_ITERATIONS).run();
+        }
+        long warmUpMillis = Duration.ofNanos(System.nanoTime() - warmUpStart).toMillis();
+        long readyMillis = System.currentTimeMillis() - jvmStartMillis;
+
+        // No per-account limit or seat capacity that the benchmark could run into, and room
+        // to track every account, so purchases take the production path rather than eviction.
+        AccountPurchaseLimiter accountPurchaseLimiter = new AccountPurchaseLimiterImpl(Integer.MAX_VALUE,
+                Integer.MAX_VALUE, Duration.ofHours(24), 12, 2 * BENCHMARK_ACCOUNTS, System::currentTimeMillis);
+        TicketService ticketService = new TicketServiceImpl(
+                new TicketPaymentServiceImpl(),
+                new SeatReservationServiceImpl(),
+                TicketServiceWarmUp::defaultTicketPrice,
+                new TicketTypeRequestHelperImpl(ticketTypeRegistry),
+                accountPurchaseLimiter,
+                new SeatHoldServiceImpl(Integer.MAX_VALUE),
+                new RefundServiceImpl(accountPurchaseLimiter));
+
+        int windows = (int) (Duration.ofSeconds(seconds).toNanos() / WINDOW_NANOS);
+        long[] purchasesPerWindow = new long[windows];
+        long[] windowEndMillis = new long[windows];
+        long purchaseCount = 0;
+        for (int window = 0; window < windows; window++) {
+            long windowEnd = System.nanoTime() + WINDOW_NANOS;
+            long purchases = 0;
+            while (System.nanoTime() < windowEnd) {
+                ticketService.purchaseTickets(1 + purchaseCount++ % BENCHMARK_ACCOUNTS, PURCHASE);
+                purchases++;
+            }
+            purchasesPerWindow[window] = purchases;
+            windowEndMillis[window] = System.currentTimeMillis() - jvmStartMillis;
+        }
+
+        long peak = 0;
+        for (long purchases : purchasesPerWindow) {
+            peak = Math.max(peak, purchases);
+        }
+        int firstNearPeak = 0;
+        while (purchasesPerWindow[firstNearPeak] < peak * PEAK_FRACTION) {
+            firstNearPeak++;
+        }
+
+        long windowsPerSecond = Duration.ofSeconds(1).toNanos() / WINDOW_NANOS;
+        System.out.printf("Warm-up: %s, ready after %d ms (warm-up took %d ms)%n",
+                warmUp, readyMillis, warmUpMillis);
+        System.out.printf("First window: %d purchases/s%n", purchasesPerWindow[0] * windowsPerSecond);
+        System.out.printf("Peak window: %d purchases/s%n", peak * windowsPerSecond);
+        System.out.printf("Time to %.0f%% of peak throughput: %d ms after JVM start%n",
+                PEAK_FRACTION * 100, windowEndMillis[firstNearPeak]);
+    }
+
+}
@@ -0,0 +1,144 @@
+package uk.gov.dwp.uc.pairtest.startup;
+
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.TicketPriceService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelper;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelperImpl;
+import uk.gov.dwp.uc.pairtest.holds.SeatHoldServiceImpl;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiterImpl;
+import uk.gov.dwp.uc.pairtest.refunds.RefundServiceImpl;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Runs synthetic purchases through the purchase path against no-op gateways, so that the
+ * JIT has compiled it and MessageFormat has been initialised, before a node reports ready
+ * and takes real traffic.
+ * <p>
+ * Each run builds its own service, account limiter and seat holds, so no synthetic
+ * purchase reaches the real gateways, counts against a real account or takes a real seat.
+ */
+public class TicketServiceWarmUp implements Runnable {
+
+    //Could be defined in config
+    static final int DEFAULT_ITERATIONS = 20_000;
+    private static final int WARM_UP_ACCOUNTS = 1_000;
+
+    private static final Map<String, Integer> DEFAULT_PRICES = Map.of("ADULT", 25, "CHILD", 15, "INFANT", 0);
+
+    private static final TicketTypeRequest.Type ADULT = TicketTypeRequest.Type.ADULT;
+    private static final TicketTypeRequest.Type CHILD = TicketTypeRequest.Type.CHILD;
+    private static final TicketTypeRequest.Type INFANT = TicketTypeRequest.Type.INFANT;
+
+    // A mix of accepted and rejected purchases, so both the happy path and the
+    // exception path are compiled.
+    private static final TicketTypeRequest[][] PURCHASES = {
+            {new TicketTypeRequest(ADULT, 1)},
+            {new TicketTypeRequest(ADULT, 2), new TicketTypeRequest(CHILD, 2)},
+            {new TicketTypeRequest(ADULT, 1), new TicketTypeRequest(INFANT, 1)},
+            {new TicketTypeRequest(ADULT, 2), new TicketTypeRequest(CHILD, 1), new TicketTypeRequest(INFANT, 1)},
+            {new TicketTypeRequest(CHILD, 1)},
+            {new TicketTypeRequest(ADULT, 26)},
+            {new TicketTypeRequest(ADULT, 15), new TicketTypeRequest(CHILD, 11)},
+            {new TicketTypeRequest(null, 1)},
+    };
+
+    private final TicketPriceService ticketPriceService;
+    private final TicketTypeRegistry ticketTypeRegistry;
+    private final int iterations;
+    private volatile boolean ready;
+
+
+    /**
+     * @param ticketPriceService the price service the node will use; only read from.
+     * @param ticketTypeRegistry the ticket types the node has on sale.
+     * @param iterations the number of synthetic purchases to run.
+     */
+    public TicketServiceWarmUp(TicketPriceService ticketPriceService, TicketTypeRegistry ticketTypeRegistry,
+                               int iterations) {
+        this.ticketPriceService = ticketPriceService;
+        this.ticketTypeRegistry = ticketTypeRegistry;
+        this.iterations = iterations;
+    }
+
+
+    /**
+     * Runs the synthetic purchases, then marks the node as ready.
+     */
+    @Override
+    public void run() {
+
+        TicketTypeRequestHelper ticketTypeRequestHelper = new TicketTypeRequestHelperImpl(ticketTypeRegistry);
+        AccountPurchaseLimiter accountPurchaseLimiter = new AccountPurchaseLimiterImpl(100, 1000,
+                Duration.ofHours(24), 12, 2 * WARM_UP_ACCOUNTS, System::currentTimeMillis);
+        TicketService ticketService = new TicketServiceImpl(
+                new TicketPaymentServiceImpl(),
+                new SeatReservationServiceImpl(),
+                ticketPriceService,
+                ticketTypeRequestHelper,
+                accountPurchaseLimiter,
+                new SeatHoldServiceImpl(Integer.MAX_VALUE),
+                new RefundServiceImpl(accountPurchaseLimiter));
+
+        for (int i = 0; i < iterations; i++) {
+            TicketTypeRequest[] purchase = PURCHASES[i % PURCHASES.length];
+            long accountId = 1 + i % WARM_UP_ACCOUNTS;
+            try {
+                ticketTypeRequestHelper.validateTicketTypes(purchase);
+                ticketTypeRequestHelper.getTicketRequestCounts(purchase);
+            } catch (InvalidPurchaseException e) {
+                // Expected for the rejected purchases.
+            }
+            try {
+                ticketService.purchaseTickets(i % 50 == 0 ? 0L : accountId, purchase);
+            } catch (InvalidPurchaseException e) {
+                // Expected for the rejected purchases.
+            }
+        }
+        ready = true;
+    }
+
+
+    /**
+     * @return true once the warm-up has completed and the node can take real traffic.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+
+    /**
+     * Prices from the published ticket price table, for when no price service is to hand,
+     * such as when training a class data sharing archive.
+     */
+    static int defaultTicketPrice(TicketTypeRequest.Type type) {
+
+        return DEFAULT_PRICES.getOrDefault(type.name(), 0);
+    }
+
+
+    /**
+     * Runs a warm-up on its own, for training a class data sharing archive.
+     *
+     * @param args optionally the number of synthetic purchases to run.
+     */
+    public static void main(String[] args) {
+
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        TicketServiceWarmUp warmUp = new TicketServiceWarmUp(TicketServiceWarmUp::defaultTicketPrice,
+                TicketTypeRegistry.loadDefault(), iterations);
+        long start = System.nanoTime();
+        warmUp.run();
+        System.out.printf("Warm-up of %d purchases took %d ms%n",
+                iterations, Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.waitingroom;
+
+/**
+ * Immutable Object
+ *
+ * @param token the purchaser's queue token.
+ * @param position how many purchasers are ahead of this one, 0 once admitted.
+ * @param admitted true once the purchaser may go on to purchase tickets.
+ * @param estimatedWaitSeconds roughly how long until the purchaser is admitted, at the current rate.
+ */
+public record QueueStatus(String token, long position, boolean admitted, long estimatedWaitSeconds) {
+}
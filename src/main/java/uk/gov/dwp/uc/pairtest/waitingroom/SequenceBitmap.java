@@ -0,0 +1,104 @@
+package uk.gov.dwp.uc.pairtest.waitingroom;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set of positive sequence numbers, held as one bit per sequence in pages that are only
+ * allocated once a sequence in their range is added. Dense sequences, such as queue tokens,
+ * cost an eighth of a byte each, with no boxing and no per-entry objects.
+ * <p>
+ * Thread safe: adding and removing are lock free once a sequence's page exists, and pages
+ * are published by copying the page directory.
+ */
+class SequenceBitmap {
+
+    private static final int PAGE_BITS = 16;
+    private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_BITS) / Long.SIZE;
+    private static final int INITIAL_PAGES = 16;
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[INITIAL_PAGES];
+
+
+    /**
+     * @param sequence a positive sequence number.
+     * @return true if the sequence was added, false if it was already in the set.
+     */
+    boolean add(long sequence) {
+
+        AtomicLongArray page = pageFor(sequence);
+        int word = wordFor(sequence);
+        long bit = 1L << sequence;
+        long current;
+        do {
+            current = page.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+        } while (!page.compareAndSet(word, current, current | bit));
+        return true;
+    }
+
+
+    /**
+     * @param sequence a positive sequence number.
+     */
+    void remove(long sequence) {
+
+        AtomicLongArray page = pageFor(sequence);
+        int word = wordFor(sequence);
+        long bit = 1L << sequence;
+        long current;
+        do {
+            current = page.get(word);
+            if ((current & bit) == 0) {
+                return;
+            }
+        } while (!page.compareAndSet(word, current, current & ~bit));
+    }
+
+
+    /**
+     * @return true if the sequence is in the set.
+     */
+    boolean contains(long sequence) {
+
+        int index = (int) (sequence >>> PAGE_BITS);
+        AtomicLongArray[] current = pages;
+        if (index >= current.length || current[index] == null) {
+            return false;
+        }
+        return (current[index].get(wordFor(sequence)) & (1L << sequence)) != 0;
+    }
+
+
+    private static int wordFor(long sequence) {
+        return (int) ((sequence & PAGE_MASK) >>> 6);
+    }
+
+
+    private AtomicLongArray pageFor(long sequence) {
+
+        int index = (int) (sequence >>> PAGE_BITS);
+        AtomicLongArray[] current = pages;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        return createPage(index);
+    }
+
+
+    private synchronized AtomicLongArray createPage(int index) {
+
+        AtomicLongArray[] current = pages;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        AtomicLongArray[] grown = Arrays.copyOf(current, Math.max(current.length, Integer.highestOneBit(index) << 1));
+        grown[index] = new AtomicLongArray(WORDS_PER_PAGE);
+        pages = grown;
+        return grown[index];
+    }
+
+}
@@ -0,0 +1,41 @@
+package uk.gov.dwp.uc.pairtest.waitingroom;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+public interface WaitingRoom {
+
+    /**
+     * Joins the back of the queue.
+     *
+     * @param accountId the account that will purchase with the token.
+     * @return the purchaser's queue token, which orders them behind everyone who joined
+     * before, and can only be used by the given account.
+     * @throws InvalidPurchaseException if the account id is invalid.
+     */
+    String join(Long accountId) throws InvalidPurchaseException;
+
+    /**
+     * Looks up where a purchaser is in the queue.
+     *
+     * @param token the purchaser's queue token.
+     * @return the purchaser's position and whether they have been admitted.
+     * @throws InvalidPurchaseException if the token was not handed out by this waiting room.
+     */
+    QueueStatus status(String token) throws InvalidPurchaseException;
+
+    /**
+     * Purchases tickets for a purchaser who has been admitted from the queue.
+     *
+     * @param token the purchaser's queue token.
+     * @param accountId the account to be used to pay for tickets.
+     * @param ticketTypeRequests an array of ticket requests that are to be purchased.
+     * @throws InvalidPurchaseException if the token is invalid, was issued to another
+     * account or has already been used, or the purchase is invalid.
+     * @throws uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException if the purchaser
+     * has not been admitted yet.
+     */
+    void purchaseTickets(String token, Long accountId, TicketTypeRequest... ticketTypeRequests)
+            throws InvalidPurchaseException;
+
+}
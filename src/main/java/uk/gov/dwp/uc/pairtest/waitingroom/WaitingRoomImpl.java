@@ -0,0 +1,310 @@
+package uk.gov.dwp.uc.pairtest.waitingroom;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits purchasers to the ticket service at a controlled rate, in the order they joined.
+ * <p>
+ * The queue itself is two numbers: the sequence of the last token handed out, and a
+ * watermark at or below which tokens have been admitted. Joining is an increment, and a
+ * status poll is a subtraction, so neither grows with the length of the queue. The
+ * watermark is moved on lazily by whichever caller next finds it due, rather than by a
+ * timer thread.
+ * <p>
+ * A token carries its sequence and the account that joined, signed with a key only this
+ * waiting room knows, so tokens cannot be guessed, forged or used for another account.
+ * Each token buys once; used tokens are marked in a bitmap by sequence, one bit for each
+ * token handed out.
+ * <p>
+ * The admission rate follows the gateways: while purchases are going through cleanly it
+ * grows a little each interval, and when gateway failures or load shedding pass a small
+ * share of enough purchases to go on, it is cut by a fixed factor. Intervals with too few
+ * purchases to tell leave it where it is.
+ */
+public class WaitingRoomImpl implements WaitingRoom {
+
+    //Could be defined in config
+    static final double DEFAULT_MIN_ADMITS_PER_SECOND = 10;
+    static final double DEFAULT_MAX_ADMITS_PER_SECOND = 10_000;
+    static final Duration ADJUSTMENT_INTERVAL = Duration.ofSeconds(1);
+    static final double MAX_FAILURE_RATIO = 0.05;
+    static final int MIN_PURCHASES_TO_DECREASE = 20;
+    static final double INCREASE_FACTOR = 1.1;
+    static final double DECREASE_FACTOR = 0.75;
+    private static final double NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+    private static final String TOKEN_ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 16;
+    private static final int TOKEN_BYTES = 2 * Long.BYTES + SIGNATURE_BYTES;
+
+    private final TicketService ticketService;
+    private final double minAdmitsPerSecond;
+    private final double maxAdmitsPerSecond;
+    private final LongSupplier nanoClock;
+
+    private final SecretKeySpec tokenKey;
+    private final ThreadLocal<Mac> tokenMacs = ThreadLocal.withInitial(this::newTokenMac);
+    private final SequenceBitmap usedTokens = new SequenceBitmap();
+
+    private final AtomicLong lastSequence = new AtomicLong();
+    private volatile long admittedWatermark;
+    private volatile double admitsPerSecond;
+
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private long lastAdvanceNanos;
+    private long lastAdjustmentNanos;
+    private double admitCredit;
+
+    private final LongAdder completedPurchases = new LongAdder();
+    private final LongAdder failedPurchases = new LongAdder();
+
+
+    /**
+     * The contents of a verified queue token.
+     */
+    private record QueueToken(long sequence, long accountId) {
+    }
+
+
+    /**
+     * @param ticketService the service admitted purchasers purchase from.
+     * @param initialAdmitsPerSecond the admission rate to start at.
+     */
+    public WaitingRoomImpl(TicketService ticketService, double initialAdmitsPerSecond) {
+        this(ticketService, initialAdmitsPerSecond, DEFAULT_MIN_ADMITS_PER_SECOND,
+                DEFAULT_MAX_ADMITS_PER_SECOND, System::nanoTime);
+    }
+
+
+    /**
+     * @param ticketService the service admitted purchasers purchase from.
+     * @param initialAdmitsPerSecond the admission rate to start at.
+     * @param minAdmitsPerSecond the rate the admission rate never drops below.
+     * @param maxAdmitsPerSecond the rate the admission rate never grows above.
+     * @param nanoClock the source of the current time in nanoseconds.
+     */
+    public WaitingRoomImpl(TicketService ticketService, double initialAdmitsPerSecond,
+                           double minAdmitsPerSecond, double maxAdmitsPerSecond, LongSupplier nanoClock) {
+
+        this.ticketService = ticketService;
+        this.admitsPerSecond = initialAdmitsPerSecond;
+        this.minAdmitsPerSecond = minAdmitsPerSecond;
+        this.maxAdmitsPerSecond = maxAdmitsPerSecond;
+        this.nanoClock = nanoClock;
+        this.lastAdvanceNanos = nanoClock.getAsLong();
+        this.lastAdjustmentNanos = lastAdvanceNanos;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.tokenKey = new SecretKeySpec(key, TOKEN_ALGORITHM);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String join(Long accountId) throws InvalidPurchaseException {
+
+        if (accountId == null || accountId <= 0) {
+            throw new InvalidPurchaseException("Account id {0} is invalid.", accountId);
+        }
+        return encodeToken(lastSequence.incrementAndGet(), accountId);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueueStatus status(String token) throws InvalidPurchaseException {
+
+        QueueToken queueToken = decodeToken(token);
+        advance();
+        return statusOf(token, queueToken.sequence());
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * The token is used up by a purchase that goes through. Purchases that fail for reasons
+     * other than being invalid count against the admission rate.
+     */
+    @Override
+    public void purchaseTickets(String token, Long accountId, TicketTypeRequest... ticketTypeRequests)
+            throws InvalidPurchaseException {
+
+        QueueToken queueToken = decodeToken(token);
+        if (accountId == null || queueToken.accountId() != accountId) {
+            throw new InvalidPurchaseException("Queue token was not issued to account {0}.",
+                    String.valueOf(accountId));
+        }
+        advance();
+        QueueStatus queueStatus = statusOf(token, queueToken.sequence());
+        if (!queueStatus.admitted()) {
+            throw new PurchaseRejectedException(
+                    "Queue token has not been admitted yet, {0} purchasers are ahead.", queueStatus.position());
+        }
+        if (!usedTokens.add(queueToken.sequence())) {
+            throw new InvalidPurchaseException("Queue token has already been used.");
+        }
+        try {
+            ticketService.purchaseTickets(accountId, ticketTypeRequests);
+        } catch (InvalidPurchaseException e) {
+            usedTokens.remove(queueToken.sequence());
+            completedPurchases.increment();
+            throw e;
+        } catch (RuntimeException e) {
+            usedTokens.remove(queueToken.sequence());
+            failedPurchases.increment();
+            throw e;
+        }
+        completedPurchases.increment();
+    }
+
+
+    /**
+     * @return the current admission rate.
+     */
+    public double getAdmitsPerSecond() {
+        return admitsPerSecond;
+    }
+
+
+    /**
+     * Moves the admitted watermark on by the admissions due since it was last moved.
+     * If another caller is already doing so, this one does not wait for it.
+     */
+    private void advance() {
+
+        if (!advanceLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = nanoClock.getAsLong();
+            double rate = admitsPerSecond;
+            if (now > lastAdvanceNanos) {
+                admitCredit += (now - lastAdvanceNanos) * rate / NANOS_PER_SECOND;
+                lastAdvanceNanos = now;
+            }
+            long waiting = lastSequence.get() - admittedWatermark;
+            long admits = (long) Math.min(admitCredit, waiting);
+            admittedWatermark += admits;
+            admitCredit -= admits;
+            // Credit only builds up while nobody is waiting; bank at most a second's worth.
+            admitCredit = Math.min(admitCredit, rate);
+
+            if (now - lastAdjustmentNanos >= ADJUSTMENT_INTERVAL.toNanos()) {
+                adjustRate();
+                lastAdjustmentNanos = now;
+            }
+        } finally {
+            advanceLock.unlock();
+        }
+    }
+
+
+    /**
+     * Tokens up to the watermark have been admitted; the token just after it is next.
+     */
+    private QueueStatus statusOf(String token, long sequence) {
+
+        long watermark = admittedWatermark;
+        if (sequence <= watermark) {
+            return new QueueStatus(token, 0, true, 0);
+        }
+        long position = sequence - watermark - 1;
+        return new QueueStatus(token, position, false, (long) Math.ceil((position + 1) / admitsPerSecond));
+    }
+
+
+    private String encodeToken(long sequence, long accountId) {
+
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES);
+        buffer.putLong(sequence).putLong(accountId).put(sign(sequence, accountId));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+
+    /**
+     * @throws InvalidPurchaseException if the token is malformed, or was not signed by this waiting room.
+     */
+    private QueueToken decodeToken(String token) throws InvalidPurchaseException {
+
+        byte[] bytes;
+        try {
+            bytes = token == null ? new byte[0] : Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            bytes = new byte[0];
+        }
+        if (bytes.length != TOKEN_BYTES) {
+            throw new InvalidPurchaseException("Queue token is invalid.");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long sequence = buffer.getLong();
+        long accountId = buffer.getLong();
+        byte[] signature = Arrays.copyOfRange(bytes, buffer.position(), TOKEN_BYTES);
+        if (!MessageDigest.isEqual(signature, sign(sequence, accountId))) {
+            throw new InvalidPurchaseException("Queue token is invalid.");
+        }
+        return new QueueToken(sequence, accountId);
+    }
+
+
+    private byte[] sign(long sequence, long accountId) {
+
+        byte[] message = ByteBuffer.allocate(2 * Long.BYTES).putLong(sequence).putLong(accountId).array();
+        return Arrays.copyOf(tokenMacs.get().doFinal(message), SIGNATURE_BYTES);
+    }
+
+
+    private Mac newTokenMac() {
+
+        try {
+            Mac mac = Mac.getInstance(TOKEN_ALGORITHM);
+            mac.init(tokenKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TOKEN_ALGORITHM + " is not available", e);
+        }
+    }
+
+
+    /**
+     * Cuts the rate if enough purchases failed over the last interval, and grows it if they
+     * went through cleanly. Completed purchases measure demand as much as gateway capacity,
+     * so the rate is only ever scaled from where it is, never set from throughput.
+     */
+    private void adjustRate() {
+
+        long completed = completedPurchases.sumThenReset();
+        long failed = failedPurchases.sumThenReset();
+        long total = completed + failed;
+        double rate = admitsPerSecond;
+
+        if (failed > total * MAX_FAILURE_RATIO) {
+            if (total >= MIN_PURCHASES_TO_DECREASE) {
+                rate = rate * DECREASE_FACTOR;
+            }
+        } else if (total > 0) {
+            rate = rate * INCREASE_FACTOR;
+        }
+        admitsPerSecond = Math.max(minAdmitsPerSecond, Math.min(maxAdmitsPerSecond, rate));
+    }
+
+}
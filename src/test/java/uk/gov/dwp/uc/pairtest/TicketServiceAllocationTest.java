@@ -0,0 +1,112 @@
+package uk.gov.dwp.uc.pairtest;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelperImpl;
+import uk.gov.dwp.uc.pairtest.holds.SeatHoldServiceImpl;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiterImpl;
+import uk.gov.dwp.uc.pairtest.refunds.RefundServiceImpl;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the number of bytes allocated by each purchaseTickets call, so that a change
+ * which adds GC pressure to the purchase path fails the build rather than showing up in
+ * production. Budgets are set in the pom and can be overridden on the command line with
+ * -Dallocation.budget.accepted and -Dallocation.budget.rejected.
+ */
+public class TicketServiceAllocationTest {
+
+    private static final int WARM_UP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 20_000;
+    private static final int ACCOUNTS = 1_000;
+
+    private static final Map<TicketTypeRequest.Type, Integer> prices =
+            Map.of(TicketTypeRequest.Type.ADULT, 25,
+                    TicketTypeRequest.Type.CHILD, 15,
+                    TicketTypeRequest.Type.INFANT, 0);
+
+    private static final TicketTypeRequest[] acceptedPurchase = {
+            new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2),
+            new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 2),
+            new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1)};
+
+    private static final TicketTypeRequest[] rejectedPurchase = {
+            new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 2),
+            new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1)};
+
+    private static ThreadMXBean threadMXBean;
+
+    AccountPurchaseLimiterImpl accountPurchaseLimiter = new AccountPurchaseLimiterImpl(Integer.MAX_VALUE,
+            Integer.MAX_VALUE, Duration.ofHours(24), 12, 2 * ACCOUNTS, System::currentTimeMillis);
+
+    TicketService ticketService = new TicketServiceImpl(
+            new TicketPaymentServiceImpl(),
+            new SeatReservationServiceImpl(),
+            prices::get,
+            new TicketTypeRequestHelperImpl(TicketTypeRegistry.builtIn()),
+            accountPurchaseLimiter,
+            new SeatHoldServiceImpl(Integer.MAX_VALUE),
+            new RefundServiceImpl(accountPurchaseLimiter));
+
+
+    @BeforeAll
+    static void checkAllocationCountingIsSupported() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean,
+                "Per-thread allocation counting is not available on this JVM");
+        threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(),
+                "Per-thread allocation counting is not supported on this JVM");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+
+    private long bytesAllocatedPerCall(Runnable purchase) {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            purchase.run();
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            purchase.run();
+        }
+        long after = threadMXBean.getCurrentThreadAllocatedBytes();
+        return (after - before) / MEASURED_CALLS;
+    }
+
+
+    @Test
+    public void AcceptedPurchaseStaysWithinAllocationBudget() {
+        long budget = Long.getLong("allocation.budget.accepted", 1_024);
+        long[] accountId = {0};
+        long bytesPerCall = bytesAllocatedPerCall(() ->
+                ticketService.purchaseTickets(1 + accountId[0]++ % ACCOUNTS, acceptedPurchase));
+        assertTrue(bytesPerCall <= budget,
+                "Accepted purchase allocated " + bytesPerCall + " bytes per call, budget is " + budget);
+    }
+
+    @Test
+    public void RejectedPurchaseStaysWithinAllocationBudget() {
+        long budget = Long.getLong("allocation.budget.rejected", 12_288);
+        long bytesPerCall = bytesAllocatedPerCall(() -> {
+            try {
+                ticketService.purchaseTickets(1L, rejectedPurchase);
+            } catch (InvalidPurchaseException e) {
+                // Expected, the purchase has no adult ticket.
+            }
+        });
+        assertTrue(bytesPerCall <= budget,
+                "Rejected purchase allocated " + bytesPerCall + " bytes per call, budget is " + budget);
+    }
+
+}
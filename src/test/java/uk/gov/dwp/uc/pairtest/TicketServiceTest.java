@@ -2,20 +2,33 @@ package uk.gov.dwp.uc.pairtest;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.TicketCounts;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.GatewayException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayTimeoutException;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseNotCompletedException;
 import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelper;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelperImpl;
+import uk.gov.dwp.uc.pairtest.holds.SeatHold;
+import uk.gov.dwp.uc.pairtest.holds.SeatHoldService;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.refunds.RefundService;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
@@ -35,6 +48,18 @@ public class TicketServiceTest {
     @Mock
     TicketTypeRequestHelper ticketTypeRequestHelper;
 
+    @Mock
+    AccountPurchaseLimiter accountPurchaseLimiter;
+
+    @Mock
+    SeatHoldService seatHoldService;
+
+    @Mock
+    SeatHold seatHold;
+
+    @Mock
+    RefundService refundService;
+
     @InjectMocks
     TicketService ticketService = new TicketServiceImpl();
 
@@ -58,8 +83,8 @@ public class TicketServiceTest {
         Long accountId = 100L;
         TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 1);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT);
 
@@ -73,8 +98,8 @@ public class TicketServiceTest {
         Long accountId = 101L;
         TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 20);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 20);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 20);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT);
 
@@ -89,8 +114,8 @@ public class TicketServiceTest {
         TicketTypeRequest adultRequest1 = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2);
         TicketTypeRequest adultRequest2 = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 4);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 4);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest1, adultRequest2);
         mockTicketPrices(TicketTypeRequest.Type.ADULT);
 
@@ -105,9 +130,9 @@ public class TicketServiceTest {
         TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
         TicketTypeRequest childRequest = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 1);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 1);
-        ticketCounts.put(TicketTypeRequest.Type.CHILD, 1);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        ticketCounts.add(TicketTypeRequest.Type.CHILD, 1);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, childRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD);
 
@@ -122,9 +147,9 @@ public class TicketServiceTest {
         TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 10);
         TicketTypeRequest childRequest = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 10);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 10);
-        ticketCounts.put(TicketTypeRequest.Type.CHILD, 10);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 10);
+        ticketCounts.add(TicketTypeRequest.Type.CHILD, 10);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, childRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD);
 
@@ -139,9 +164,9 @@ public class TicketServiceTest {
         TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2);
         TicketTypeRequest childRequest = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 2);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 2);
-        ticketCounts.put(TicketTypeRequest.Type.CHILD, 2);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 2);
+        ticketCounts.add(TicketTypeRequest.Type.CHILD, 2);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, childRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD);
 
@@ -158,9 +183,9 @@ public class TicketServiceTest {
         TicketTypeRequest childRequest1 = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 2);
         TicketTypeRequest childRequest2 = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 2);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 4);
-        ticketCounts.put(TicketTypeRequest.Type.CHILD, 4);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 4);
+        ticketCounts.add(TicketTypeRequest.Type.CHILD, 4);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest1, adultRequest2, childRequest1, childRequest2);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD);
 
@@ -175,9 +200,9 @@ public class TicketServiceTest {
         TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
         TicketTypeRequest infantRequest = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 1);
-        ticketCounts.put(TicketTypeRequest.Type.INFANT, 1);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 1);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, infantRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.INFANT);
 
@@ -193,9 +218,9 @@ public class TicketServiceTest {
         TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 10);
         TicketTypeRequest infantRequest = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 10);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 10);
-        ticketCounts.put(TicketTypeRequest.Type.INFANT, 10);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 10);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 10);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, infantRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.INFANT);
 
@@ -212,9 +237,9 @@ public class TicketServiceTest {
         TicketTypeRequest infantRequest1 = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 2);
         TicketTypeRequest infantRequest2 = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 2);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 4);
-        ticketCounts.put(TicketTypeRequest.Type.INFANT, 4);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 4);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 4);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest1, adultRequest2, infantRequest1, infantRequest2);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.INFANT);
 
@@ -231,10 +256,10 @@ public class TicketServiceTest {
         TicketTypeRequest childRequest = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 1);
         TicketTypeRequest infantRequest = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 1);
-        ticketCounts.put(TicketTypeRequest.Type.CHILD, 1);
-        ticketCounts.put(TicketTypeRequest.Type.INFANT, 1);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        ticketCounts.add(TicketTypeRequest.Type.CHILD, 1);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 1);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, childRequest, infantRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD, TicketTypeRequest.Type.INFANT);
 
@@ -251,10 +276,10 @@ public class TicketServiceTest {
         TicketTypeRequest childRequest = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 10);
         TicketTypeRequest infantRequest = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 5);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 5);
-        ticketCounts.put(TicketTypeRequest.Type.CHILD, 10);
-        ticketCounts.put(TicketTypeRequest.Type.INFANT, 5);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 5);
+        ticketCounts.add(TicketTypeRequest.Type.CHILD, 10);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 5);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, childRequest, infantRequest);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD, TicketTypeRequest.Type.INFANT);
 
@@ -274,10 +299,10 @@ public class TicketServiceTest {
         TicketTypeRequest infantRequest1 = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 2);
         TicketTypeRequest infantRequest2 = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 2);
 
-        Map<TicketTypeRequest.Type, Integer> ticketCounts = new HashMap<>();
-        ticketCounts.put(TicketTypeRequest.Type.ADULT, 4);
-        ticketCounts.put(TicketTypeRequest.Type.CHILD, 4);
-        ticketCounts.put(TicketTypeRequest.Type.INFANT, 4);
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 4);
+        ticketCounts.add(TicketTypeRequest.Type.CHILD, 4);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 4);
         doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest1, adultRequest2,
                 childRequest1, childRequest2, infantRequest1, infantRequest2);
         mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD, TicketTypeRequest.Type.INFANT);
@@ -301,6 +326,30 @@ public class TicketServiceTest {
         verify(seatReservationService, never()).reserveSeat(anyLong() , anyInt());
     }
 
+    @Test
+    public void VenueTicketTypesAreChargedAtThePriceOfTheirPriceKey() {
+        Long accountId = 125L;
+        Properties config = new Properties();
+        config.setProperty("ticket.types", "ADULT, CHILD, INFANT, STUDENT, COMPANION");
+        config.setProperty("ticket.type.STUDENT.priceKey", "CHILD");
+        config.setProperty("ticket.type.COMPANION.requiresAdult", "true");
+        config.setProperty("ticket.type.COMPANION.priceKey", "INFANT");
+        TicketTypeRegistry venueRegistry = TicketTypeRegistry.load(config);
+        TicketService venueTicketService = new TicketServiceImpl(ticketPaymentService, seatReservationService,
+                ticketPriceService, new TicketTypeRequestHelperImpl(venueRegistry), accountPurchaseLimiter,
+                seatHoldService, refundService);
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+        TicketTypeRequest studentRequest = new TicketTypeRequest(venueRegistry.get("STUDENT"), 2);
+        TicketTypeRequest companionRequest = new TicketTypeRequest(venueRegistry.get("COMPANION"), 1);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD, TicketTypeRequest.Type.INFANT);
+
+        venueTicketService.purchaseTickets(accountId, adultRequest, studentRequest, companionRequest);
+        verify(ticketPaymentService, times(1)).makePayment(125L, 55);
+        verify(seatReservationService, times(1)).reserveSeat(125L, 4);
+        verify(ticketPriceService, never()).getTicketPrice(venueRegistry.get("STUDENT"));
+        verify(ticketPriceService, never()).getTicketPrice(venueRegistry.get("COMPANION"));
+    }
+
     @Test
     public void CannotBookWithAccountIdLessThan1() {
         Long accountId = 0L;
@@ -338,4 +387,194 @@ public class TicketServiceTest {
         verify(seatReservationService, never()).reserveSeat(anyLong() , anyInt());
     }
 
+    @Test
+    public void AccountLimitExceptionPreventsSeatReservationAndPayment() {
+        Long accountId = 115L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 2);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT);
+        doThrow(InvalidPurchaseException.class).when(accountPurchaseLimiter).acquire(115L, 2, 50);
+
+        assertThrows(InvalidPurchaseException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest);
+        });
+        verify(ticketPaymentService, never()).makePayment(anyLong() , anyInt());
+        verify(seatReservationService, never()).reserveSeat(anyLong() , anyInt());
+    }
+
+    @Test
+    public void FailedPaymentReleasesAccountLimitAndPreventsSeatReservation() {
+        Long accountId = 116L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+        TicketTypeRequest infantRequest = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 1);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, infantRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.INFANT);
+        doThrow(IllegalStateException.class).when(ticketPaymentService).makePayment(116L, 25);
+
+        assertThrows(IllegalStateException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest, infantRequest);
+        });
+        verify(accountPurchaseLimiter, times(1)).acquire(116L, 2, 25);
+        verify(accountPurchaseLimiter, times(1)).release(116L, 2, 25);
+        verify(seatReservationService, never()).reserveSeat(anyLong() , anyInt());
+    }
+
+    @Test
+    public void SeatsArePinnedBeforePaymentAndConfirmedAfterReservation() {
+        Long accountId = 117L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2);
+        TicketTypeRequest infantRequest = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 2);
+        ticketCounts.add(TicketTypeRequest.Type.INFANT, 1);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest, infantRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.INFANT);
+        doReturn(seatHold).when(seatHoldService).holdSeats(117L, 2);
+
+        ticketService.purchaseTickets(accountId, adultRequest, infantRequest);
+        InOrder inOrder = inOrder(accountPurchaseLimiter, seatHoldService, ticketPaymentService, seatReservationService);
+        inOrder.verify(accountPurchaseLimiter).acquire(117L, 3, 50);
+        inOrder.verify(seatHoldService).holdSeats(117L, 2);
+        inOrder.verify(seatHoldService).pin(seatHold);
+        inOrder.verify(ticketPaymentService).makePayment(117L, 50);
+        inOrder.verify(seatReservationService).reserveSeat(117L, 2);
+        inOrder.verify(seatHoldService).confirm(seatHold);
+    }
+
+    @Test
+    public void SeatHoldExceptionReleasesAccountLimitAndPreventsPayment() {
+        Long accountId = 118L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT);
+        doThrow(InvalidPurchaseException.class).when(seatHoldService).holdSeats(118L, 1);
+
+        assertThrows(InvalidPurchaseException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest);
+        });
+        verify(accountPurchaseLimiter, times(1)).release(118L, 1, 25);
+        verify(ticketPaymentService, never()).makePayment(anyLong() , anyInt());
+        verify(seatReservationService, never()).reserveSeat(anyLong() , anyInt());
+    }
+
+    @Test
+    public void FailedPaymentReleasesHeldSeats() {
+        Long accountId = 119L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT);
+        doReturn(seatHold).when(seatHoldService).holdSeats(119L, 1);
+        doThrow(IllegalStateException.class).when(ticketPaymentService).makePayment(119L, 25);
+
+        assertThrows(IllegalStateException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest);
+        });
+        verify(seatHoldService, times(1)).release(seatHold);
+        verify(seatHoldService, never()).confirm(seatHold);
+        verify(seatReservationService, never()).reserveSeat(anyLong() , anyInt());
+    }
+
+    @Test
+    public void ConfirmFailingAfterPaymentRequestsRefund() {
+        Long accountId = 120L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 2);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT);
+        doReturn(seatHold).when(seatHoldService).holdSeats(120L, 2);
+        InvalidPurchaseException failure = new InvalidPurchaseException("Seats taken");
+        doThrow(failure).when(seatHoldService).confirm(seatHold);
+
+        Exception exception = assertThrows(PurchaseNotCompletedException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest);
+        });
+        assertTrue(exception.getMessage().contains(
+                "Account 120 may have been charged 50, but the purchase could not be completed. A refund has been requested."));
+        verify(ticketPaymentService, times(1)).makePayment(120L, 50);
+        verify(refundService, times(1)).requestRefund(120L, 2, 50, failure);
+        verify(seatHoldService, times(1)).release(seatHold);
+        verify(accountPurchaseLimiter, never()).release(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void ReservationFailingAfterPaymentRequestsRefundAndReleasesHeldSeats() {
+        Long accountId = 121L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT);
+        doReturn(seatHold).when(seatHoldService).holdSeats(121L, 1);
+        GatewayException failure = new GatewayException("Seat booking service failed the call.");
+        doThrow(failure).when(seatReservationService).reserveSeat(121L, 1);
+
+        Exception exception = assertThrows(PurchaseNotCompletedException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest);
+        });
+        assertEquals(failure, exception.getCause());
+        verify(refundService, times(1)).requestRefund(121L, 1, 25, failure);
+        verify(seatHoldService, times(1)).release(seatHold);
+        verify(seatHoldService, never()).confirm(seatHold);
+        verify(accountPurchaseLimiter, never()).release(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void PaymentTimeoutRequestsRefundAndKeepsAccountLimit() {
+        Long accountId = 122L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT);
+        doReturn(seatHold).when(seatHoldService).holdSeats(122L, 1);
+        GatewayTimeoutException failure = new GatewayTimeoutException("Payment gateway did not answer within 30 ms.");
+        doThrow(failure).when(ticketPaymentService).makePayment(122L, 25);
+
+        assertThrows(PurchaseNotCompletedException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest);
+        });
+        verify(refundService, times(1)).requestRefund(122L, 1, 25, failure);
+        verify(seatHoldService, times(1)).release(seatHold);
+        verify(accountPurchaseLimiter, never()).release(anyLong(), anyInt(), anyInt());
+        verify(seatReservationService, never()).reserveSeat(anyLong(), anyInt());
+    }
+
+    @Test
+    public void HoldThatCanNotBePinnedReleasesAccountLimitAndPreventsPayment() {
+        Long accountId = 123L;
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+
+        TicketCounts ticketCounts = new TicketCounts(TicketTypeRegistry.builtIn());
+        ticketCounts.add(TicketTypeRequest.Type.ADULT, 1);
+        doReturn(ticketCounts).when(ticketTypeRequestHelper).getTicketRequestCounts(adultRequest);
+        mockTicketPrices(TicketTypeRequest.Type.ADULT);
+        doReturn(seatHold).when(seatHoldService).holdSeats(123L, 1);
+        doThrow(InvalidPurchaseException.class).when(seatHoldService).pin(seatHold);
+
+        assertThrows(InvalidPurchaseException.class, () -> {
+            ticketService.purchaseTickets(accountId, adultRequest);
+        });
+        verify(accountPurchaseLimiter, times(1)).release(123L, 1, 25);
+        verify(ticketPaymentService, never()).makePayment(anyLong(), anyInt());
+        verify(refundService, never()).requestRefund(anyLong(), anyInt(), anyInt(), any());
+    }
+
 }
@@ -0,0 +1,162 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelper;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelperImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TicketTypeRegistryTest {
+
+    private static final String VENUE_CONFIG = String.join("\n",
+            "ticket.types=ADULT, CHILD, INFANT, STUDENT, SENIOR, COMPANION",
+            "ticket.type.CHILD.requiresAdult=true",
+            "ticket.type.INFANT.seated=false",
+            "ticket.type.INFANT.requiresAdult=true",
+            "ticket.type.STUDENT.priceKey=CHILD",
+            "ticket.type.SENIOR.priceKey=CHILD",
+            "ticket.type.COMPANION.requiresAdult=true",
+            "ticket.type.COMPANION.priceKey=INFANT");
+
+    TicketTypeRegistry venueRegistry = load(VENUE_CONFIG);
+
+    TicketTypeRequestHelper ticketTypeRequestHelper = new TicketTypeRequestHelperImpl(venueRegistry);
+
+
+    @Test
+    public void BuiltInTypesHaveFixedIds() {
+        assertEquals(0, TicketTypeRequest.Type.ADULT.id());
+        assertEquals(1, TicketTypeRequest.Type.CHILD.id());
+        assertEquals(2, TicketTypeRequest.Type.INFANT.id());
+        assertFalse(TicketTypeRequest.Type.INFANT.seated());
+        assertTrue(TicketTypeRequest.Type.CHILD.requiresAdult());
+        assertSame(TicketTypeRequest.Type.CHILD, TicketTypeRequest.Type.valueOf("CHILD"));
+        assertEquals(3, TicketTypeRequest.Type.values().length);
+        assertEquals(3, TicketTypeRegistry.builtIn().size());
+    }
+
+    @Test
+    public void EveryRegistryUsesTheBuiltInTypes() {
+        assertSame(TicketTypeRequest.Type.ADULT, venueRegistry.get("ADULT"));
+        assertTrue(venueRegistry.contains(TicketTypeRequest.Type.INFANT));
+        TicketTypeRegistry unlisted = load("ticket.types=STUDENT\nticket.type.STUDENT.priceKey=CHILD");
+        assertSame(TicketTypeRequest.Type.CHILD, unlisted.get("CHILD"));
+        assertEquals(3, unlisted.get("STUDENT").id());
+        TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+        assertDoesNotThrow(() -> new TicketTypeRequestHelperImpl(unlisted).validateTicketTypes(adultRequest));
+    }
+
+    @Test
+    public void DefaultConfigLoadsTheBuiltInTypes() {
+        TicketTypeRegistry registry = TicketTypeRegistry.loadDefault();
+        assertEquals(3, registry.size());
+        assertSame(TicketTypeRequest.Type.INFANT, registry.get("INFANT"));
+    }
+
+    @Test
+    public void TypesTakeTheirAttributesFromConfig() {
+        TicketTypeRequest.Type student = venueRegistry.get("STUDENT");
+        assertEquals(3, student.id());
+        assertTrue(student.seated());
+        assertFalse(student.requiresAdult());
+        assertEquals("CHILD", student.priceKey());
+        assertEquals("ADULT", venueRegistry.get("ADULT").priceKey());
+        assertNull(venueRegistry.get("STAFF"));
+    }
+
+    @Test
+    public void TypesArePricedAsTheTypeTheirPriceKeyNames() {
+        assertSame(TicketTypeRequest.Type.CHILD, venueRegistry.priceTypeAt(venueRegistry.get("STUDENT").id()));
+        assertSame(TicketTypeRequest.Type.INFANT, venueRegistry.priceTypeAt(venueRegistry.get("COMPANION").id()));
+        assertSame(TicketTypeRequest.Type.ADULT, venueRegistry.priceTypeAt(TicketTypeRequest.Type.ADULT.id()));
+    }
+
+    @Test
+    public void PriceKeyMustNameATypePricedUnderItsOwnName() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                load("ticket.types=STUDENT\nticket.type.STUDENT.priceKey=STAFF"));
+        assertTrue(exception.getMessage().contains("Ticket type STUDENT is priced as STAFF"));
+        assertThrows(IllegalArgumentException.class, () -> load(String.join("\n",
+                "ticket.types=STUDENT, SENIOR",
+                "ticket.type.STUDENT.priceKey=CHILD",
+                "ticket.type.SENIOR.priceKey=STUDENT")));
+    }
+
+    @Test
+    public void BuiltInTypesCanNotBeReconfigured() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                load("ticket.types=ADULT, INFANT\nticket.type.INFANT.seated=true"));
+        assertTrue(exception.getMessage().contains("Ticket type INFANT is built in"));
+        assertThrows(IllegalArgumentException.class, () ->
+                load("ticket.types=CHILD\nticket.type.CHILD.priceKey=INFANT"));
+    }
+
+    @Test
+    public void TypeThatDoesNotRequireAnAdultCanBePurchasedAlone() {
+        TicketTypeRequest seniorRequest = new TicketTypeRequest(venueRegistry.get("SENIOR"), 2);
+        TicketTypeRequest companionRequest = new TicketTypeRequest(venueRegistry.get("COMPANION"), 1);
+        TicketCounts ticketCounts = assertDoesNotThrow(() ->
+                ticketTypeRequestHelper.getTicketRequestCounts(seniorRequest, companionRequest));
+        assertEquals(2, ticketCounts.get(venueRegistry.get("SENIOR")));
+        assertEquals(1, ticketCounts.get(venueRegistry.get("COMPANION")));
+    }
+
+    @Test
+    public void CanNotPurchaseTypeThatRequiresAnAdultAlone() {
+        TicketTypeRequest companionRequest = new TicketTypeRequest(venueRegistry.get("COMPANION"), 1);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> {
+            ticketTypeRequestHelper.getTicketRequestCounts(companionRequest);
+        });
+        assertTrue(exception.getMessage().contains("TicketTypeRequest contains 0 adult tickets, requires at least 1."));
+    }
+
+    @Test
+    public void CanNotRequestTypeThatIsNotOnSale() {
+        TicketTypeRequest studentRequest = new TicketTypeRequest(venueRegistry.get("STUDENT"), 1);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> {
+            new TicketTypeRequestHelperImpl(TicketTypeRegistry.builtIn()).validateTicketTypes(studentRequest);
+        });
+        assertTrue(exception.getMessage().contains("Ticket request contains unknown TicketType STUDENT"));
+    }
+
+    @Test
+    public void ConfigMustListTypesOnce() {
+        assertThrows(IllegalArgumentException.class, () -> load("ticket.types="));
+        assertThrows(IllegalArgumentException.class, () -> load("ticket.types=ADULT,CHILD,ADULT"));
+    }
+
+    @Test
+    public void ConfigCanNotListABlankTypeName() {
+        assertThrows(IllegalArgumentException.class, () -> load("ticket.types=ADULT,,STUDENT"));
+        assertThrows(IllegalArgumentException.class, () -> load("ticket.types=ADULT, STUDENT,"));
+        assertThrows(IllegalArgumentException.class, () -> load("ticket.types=,ADULT"));
+    }
+
+    @Test
+    public void ConfigFlagsMustBeTrueOrFalse() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                load("ticket.types=ADULT\nticket.type.ADULT.seated=yes"));
+        assertTrue(exception.getMessage().contains("ticket.type.ADULT.seated must be true or false, but is yes"));
+    }
+
+
+    private static TicketTypeRegistry load(String config) {
+        try {
+            return TicketTypeRegistry.load(new ByteArrayInputStream(config.getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+}
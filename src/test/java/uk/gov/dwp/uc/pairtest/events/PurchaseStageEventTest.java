@@ -0,0 +1,128 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketPriceService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelperImpl;
+import uk.gov.dwp.uc.pairtest.holds.SeatHoldService;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.refunds.RefundService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+public class PurchaseStageEventTest {
+
+    @Mock
+    TicketPaymentService ticketPaymentService;
+
+    @Mock
+    SeatReservationService seatReservationService;
+
+    @Mock
+    TicketPriceService ticketPriceService;
+
+    @Mock
+    AccountPurchaseLimiter accountPurchaseLimiter;
+
+    @Mock
+    SeatHoldService seatHoldService;
+
+    @Mock
+    RefundService refundService;
+
+
+    private List<RecordedEvent> recordPurchase(Long accountId, TicketTypeRequest... ticketTypeRequests)
+            throws Exception {
+
+        TicketService ticketService = new TicketServiceImpl(ticketPaymentService, seatReservationService,
+                ticketPriceService, new TicketTypeRequestHelperImpl(TicketTypeRegistry.builtIn()),
+                accountPurchaseLimiter, seatHoldService, refundService);
+        Path recordingFile = Files.createTempFile("purchase-stages", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("uk.gov.dwp.uc.pairtest.*");
+            recording.start();
+            try {
+                ticketService.purchaseTickets(accountId, ticketTypeRequests);
+            } catch (InvalidPurchaseException e) {
+                // Rejections are recorded too.
+            }
+            recording.stop();
+            recording.dump(recordingFile);
+            return RecordingFile.readAllEvents(recordingFile).stream()
+                    .filter(event -> event.getEventType().getName().startsWith("uk.gov.dwp.uc.pairtest."))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
+
+    @Test
+    public void AcceptedPurchaseRecordsEveryStage() throws Exception {
+        doReturn(25).when(ticketPriceService).getTicketPrice(any(TicketTypeRequest.Type.class));
+
+        List<RecordedEvent> events = recordPurchase(100L,
+                new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2),
+                new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 1));
+
+        assertEquals(List.of("uk.gov.dwp.uc.pairtest.PurchaseValidation",
+                        "uk.gov.dwp.uc.pairtest.PurchaseCounting",
+                        "uk.gov.dwp.uc.pairtest.PurchasePricing",
+                        "uk.gov.dwp.uc.pairtest.PurchasePayment",
+                        "uk.gov.dwp.uc.pairtest.SeatReservation"),
+                events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toList()));
+        for (RecordedEvent event : events) {
+            assertEquals(100L, event.getLong("accountId"));
+            assertEquals(PurchaseStageEvent.ACCEPTED, event.getString("outcome"));
+        }
+        RecordedEvent payment = events.get(3);
+        assertEquals(3, payment.getInt("totalTickets"));
+    }
+
+    @Test
+    public void RejectedPurchaseRecordsStageAndReason() throws Exception {
+        List<RecordedEvent> events = recordPurchase(101L,
+                new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 1));
+
+        assertEquals(2, events.size());
+        RecordedEvent counting = events.get(1);
+        assertEquals("uk.gov.dwp.uc.pairtest.PurchaseCounting", counting.getEventType().getName());
+        assertEquals(PurchaseStageEvent.REJECTED, counting.getString("outcome"));
+        assertEquals("TicketTypeRequest contains 0 adult tickets, requires at least 1.",
+                counting.getString("rejectionReason"));
+    }
+
+    @Test
+    public void StageEventsAreOnlyCreatedWhileARecordingHasThemEnabled() {
+        assertNull(PurchaseValidationEvent.beginIfEnabled());
+        try (Recording recording = new Recording()) {
+            recording.enable("uk.gov.dwp.uc.pairtest.PurchaseValidation");
+            recording.start();
+            assertNotNull(PurchaseValidationEvent.beginIfEnabled());
+        }
+        assertNull(PurchaseValidationEvent.beginIfEnabled());
+    }
+
+}
@@ -3,6 +3,7 @@ package uk.gov.dwp.uc.pairtest.helpers;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
@@ -13,7 +14,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 @ExtendWith(MockitoExtension.class)
 public class TicketTypeRequestHelperTest {
 
-    TicketTypeRequestHelper ticketTypeRequestValidator = new TicketTypeRequestHelperImpl();
+    TicketTypeRequestHelper ticketTypeRequestValidator = new TicketTypeRequestHelperImpl(TicketTypeRegistry.builtIn());
 
     @Test
     public void CanHaveValidRequestTypesRegardlessOfTicketNumbers() {
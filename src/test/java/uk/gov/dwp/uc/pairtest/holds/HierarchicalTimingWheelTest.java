@@ -0,0 +1,108 @@
+package uk.gov.dwp.uc.pairtest.holds;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HierarchicalTimingWheelTest {
+
+    static class TimedEntry extends HierarchicalTimingWheel.Entry {
+        final long deadline;
+        long expiredAt = -1;
+
+        TimedEntry(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    long now = 1_234_567;
+
+    HierarchicalTimingWheel<TimedEntry> wheel = new HierarchicalTimingWheel<>(10, now);
+
+
+    private List<TimedEntry> advanceTo(long time) {
+        List<TimedEntry> expired = new ArrayList<>();
+        now = time;
+        wheel.advance(now, entry -> {
+            entry.expiredAt = now;
+            expired.add(entry);
+        });
+        return expired;
+    }
+
+
+    @Test
+    public void EntryExpiresOnFirstTickAtOrAfterDeadline() {
+        long start = now;
+        TimedEntry entry = new TimedEntry(start + 95);
+        wheel.schedule(entry, entry.deadline);
+
+        assertTrue(advanceTo(start + 90).isEmpty());
+        assertTrue(advanceTo(start + 99).isEmpty());
+        assertEquals(List.of(entry), advanceTo(start + 105));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void EntriesAcrossEveryLevelExpireWithinOneTickOfDeadline() {
+        Random random = new Random(42);
+        List<TimedEntry> entries = new ArrayList<>();
+        long start = now;
+        for (int i = 0; i < 10_000; i++) {
+            // Up to an hour out, which reaches every level of the wheel.
+            TimedEntry entry = new TimedEntry(start + random.nextInt(3_600_000));
+            entries.add(entry);
+            wheel.schedule(entry, entry.deadline);
+        }
+
+        for (long time = start; time <= start + 3_600_010; time += 7) {
+            for (TimedEntry entry : advanceTo(time)) {
+                assertTrue(entry.expiredAt >= entry.deadline);
+                assertTrue(entry.expiredAt < entry.deadline + 17);
+            }
+        }
+        assertEquals(0, wheel.size());
+        assertTrue(entries.stream().allMatch(entry -> entry.expiredAt >= 0));
+    }
+
+    @Test
+    public void EntryBeyondTheTopLevelIsPlacedAgainUntilItExpires() {
+        // 10 ms ticks over four levels of 64 slots reach 2^24 ticks, about 46 hours.
+        long start = now;
+        TimedEntry far = new TimedEntry(start + (3L << 24) * 10 + 55);
+        TimedEntry near = new TimedEntry(start + (1L << 24) * 10 - 1_000);
+        wheel.schedule(far, far.deadline);
+        wheel.schedule(near, near.deadline);
+
+        assertEquals(List.of(near), advanceTo(near.deadline + 10));
+        assertTrue(advanceTo(far.deadline - 10).isEmpty());
+        assertEquals(List.of(far), advanceTo(far.deadline + 10));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void CancelledEntryNeverExpires() {
+        TimedEntry cancelled = new TimedEntry(now + 1_000);
+        TimedEntry kept = new TimedEntry(now + 1_000);
+        wheel.schedule(cancelled, cancelled.deadline);
+        wheel.schedule(kept, kept.deadline);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(List.of(kept), advanceTo(now + 2_000));
+    }
+
+    @Test
+    public void EntryAlreadyPastDeadlineExpiresOnNextTick() {
+        TimedEntry entry = new TimedEntry(now - 500);
+        wheel.schedule(entry, entry.deadline);
+        assertEquals(List.of(entry), advanceTo(now + 10));
+    }
+
+}
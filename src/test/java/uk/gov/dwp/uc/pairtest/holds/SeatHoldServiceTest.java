@@ -0,0 +1,137 @@
+package uk.gov.dwp.uc.pairtest.holds;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SeatHoldServiceTest {
+
+    AtomicLong now = new AtomicLong(1_000_000);
+
+    SeatHoldServiceImpl seatHoldService = new SeatHoldServiceImpl(100, Duration.ofMinutes(2), Duration.ofMinutes(5), now::get);
+
+
+    @Test
+    public void HeldSeatsAreNotAvailable() {
+        seatHoldService.holdSeats(100L, 60);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> {
+            seatHoldService.holdSeats(101L, 41);
+        });
+        assertTrue(exception.getMessage().contains(
+                "Account 101 requested 41 seats, but only 40 are available."));
+    }
+
+    @Test
+    public void ConfirmedSeatsAreNotReleasedWhenHoldWouldHaveExpired() {
+        SeatHold seatHold = seatHoldService.holdSeats(102L, 60);
+        seatHoldService.confirm(seatHold);
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        seatHoldService.expireHolds();
+
+        assertEquals(SeatHold.State.CONFIRMED, seatHold.state());
+        assertEquals(40, seatHoldService.getAvailableSeats());
+    }
+
+    @Test
+    public void UnconfirmedSeatsAreReleasedAfterHoldExpires() {
+        SeatHold seatHold = seatHoldService.holdSeats(103L, 60);
+        now.addAndGet(Duration.ofMinutes(2).toMillis() - 1);
+        seatHoldService.expireHolds();
+        assertEquals(40, seatHoldService.getAvailableSeats());
+
+        now.addAndGet(10);
+        seatHoldService.expireHolds();
+        assertEquals(SeatHold.State.EXPIRED, seatHold.state());
+        assertEquals(100, seatHoldService.getAvailableSeats());
+    }
+
+    @Test
+    public void ReleasedSeatsAreAvailableStraightAway() {
+        SeatHold seatHold = seatHoldService.holdSeats(104L, 100);
+        seatHoldService.release(seatHold);
+        assertEquals(SeatHold.State.RELEASED, seatHold.state());
+        assertDoesNotThrow(() -> seatHoldService.holdSeats(105L, 100));
+    }
+
+    @Test
+    public void ExpiredHoldCanBeConfirmedWhileSeatsAreStillAvailable() {
+        SeatHold seatHold = seatHoldService.holdSeats(106L, 60);
+        now.addAndGet(Duration.ofMinutes(3).toMillis());
+        seatHoldService.confirm(seatHold);
+        assertEquals(SeatHold.State.CONFIRMED, seatHold.state());
+        assertEquals(40, seatHoldService.getAvailableSeats());
+    }
+
+    @Test
+    public void ExpiredHoldCanNotBeConfirmedOnceSeatsAreTaken() {
+        SeatHold seatHold = seatHoldService.holdSeats(107L, 60);
+        now.addAndGet(Duration.ofMinutes(3).toMillis());
+        seatHoldService.holdSeats(108L, 50);
+        assertThrows(InvalidPurchaseException.class, () -> seatHoldService.confirm(seatHold));
+        assertEquals(SeatHold.State.EXPIRED, seatHold.state());
+    }
+
+    @Test
+    public void PinnedHoldOutlivesHoldTtlAndCanStillBeConfirmed() {
+        SeatHold seatHold = seatHoldService.holdSeats(108L, 60);
+        seatHoldService.pin(seatHold);
+        now.addAndGet(Duration.ofMinutes(4).toMillis());
+        seatHoldService.expireHolds();
+        assertEquals(SeatHold.State.PINNED, seatHold.state());
+        assertEquals(40, seatHoldService.getAvailableSeats());
+
+        seatHoldService.holdSeats(109L, 40);
+        assertDoesNotThrow(() -> seatHoldService.confirm(seatHold));
+        assertEquals(SeatHold.State.CONFIRMED, seatHold.state());
+    }
+
+    @Test
+    public void PinnedHoldIsReleasedAtTheEndOfItsPaymentLease() {
+        SeatHold seatHold = seatHoldService.holdSeats(112L, 60);
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        seatHoldService.pin(seatHold);
+        now.addAndGet(Duration.ofMinutes(5).toMillis() - 1);
+        seatHoldService.expireHolds();
+        assertEquals(40, seatHoldService.getAvailableSeats());
+
+        now.addAndGet(10);
+        seatHoldService.expireHolds();
+        assertEquals(SeatHold.State.EXPIRED, seatHold.state());
+        assertEquals(100, seatHoldService.getAvailableSeats());
+    }
+
+    @Test
+    public void LapsedPinnedHoldCanNotBeConfirmedOnceSeatsAreTaken() {
+        SeatHold seatHold = seatHoldService.holdSeats(113L, 60);
+        seatHoldService.pin(seatHold);
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+        seatHoldService.holdSeats(114L, 50);
+        assertThrows(InvalidPurchaseException.class, () -> seatHoldService.confirm(seatHold));
+        assertEquals(SeatHold.State.EXPIRED, seatHold.state());
+    }
+
+    @Test
+    public void ReleasedPinnedHoldGivesSeatsBack() {
+        SeatHold seatHold = seatHoldService.holdSeats(110L, 60);
+        seatHoldService.pin(seatHold);
+        seatHoldService.release(seatHold);
+        assertEquals(SeatHold.State.RELEASED, seatHold.state());
+        assertEquals(100, seatHoldService.getAvailableSeats());
+    }
+
+    @Test
+    public void ExpiredHoldCanNotBePinned() {
+        SeatHold seatHold = seatHoldService.holdSeats(111L, 60);
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> seatHoldService.pin(seatHold));
+        assertTrue(exception.getMessage().contains("Seat hold for account 111 has already ended."));
+    }
+
+}
@@ -0,0 +1,152 @@
+package uk.gov.dwp.uc.pairtest.intake;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class PurchaseIntakeTest {
+
+    @Mock
+    TicketService ticketService;
+
+    PurchaseIntakeImpl purchaseIntake;
+
+    TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+
+
+    @AfterEach
+    public void closeIntake() {
+        purchaseIntake.close();
+    }
+
+
+    private Throwable failureOf(CompletableFuture<Void> result) {
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        return exception.getCause();
+    }
+
+
+    @Test
+    public void SubmittedPurchaseIsMadeByTicketService() throws Exception {
+        purchaseIntake = new PurchaseIntakeImpl(ticketService, 2, 16);
+        purchaseIntake.start();
+
+        purchaseIntake.submit(PurchaseLane.REGULAR, 100L, adultRequest).get(5, TimeUnit.SECONDS);
+        verify(ticketService).purchaseTickets(100L, adultRequest);
+    }
+
+    @Test
+    public void PurchaseExceptionCompletesResultExceptionally() {
+        purchaseIntake = new PurchaseIntakeImpl(ticketService, 1, 16);
+        doThrow(new InvalidPurchaseException("Account id {0} is invalid.", 0)).when(ticketService)
+                .purchaseTickets(0L, adultRequest);
+        purchaseIntake.start();
+
+        Throwable failure = failureOf(purchaseIntake.submit(PurchaseLane.PRIORITY, 0L, adultRequest));
+        assertEquals("Account id 0 is invalid.", failure.getMessage());
+    }
+
+    @Test
+    public void ErrorCompletesResultExceptionallyAndWorkerCarriesOn() throws Exception {
+        purchaseIntake = new PurchaseIntakeImpl(ticketService, 1, 16);
+        doThrow(new StackOverflowError()).when(ticketService).purchaseTickets(101L, adultRequest);
+        purchaseIntake.start();
+
+        assertInstanceOf(StackOverflowError.class,
+                failureOf(purchaseIntake.submit(PurchaseLane.PRIORITY, 101L, adultRequest)));
+        purchaseIntake.submit(PurchaseLane.PRIORITY, 102L, adultRequest).get(5, TimeUnit.SECONDS);
+        verify(ticketService).purchaseTickets(102L, adultRequest);
+    }
+
+    @Test
+    public void FullLaneShedsPurchasesWithoutQueueingThem() {
+        purchaseIntake = new PurchaseIntakeImpl(ticketService, 1, 8);
+        for (int i = 0; i < 8; i++) {
+            assertFalse(purchaseIntake.submit(PurchaseLane.PRIORITY, 100L, adultRequest).isDone());
+        }
+
+        Throwable failure = failureOf(purchaseIntake.submit(PurchaseLane.PRIORITY, 100L, adultRequest));
+        assertInstanceOf(PurchaseRejectedException.class, failure);
+        assertFalse(failure instanceof InvalidPurchaseException);
+        assertEquals("Too many PRIORITY purchases are waiting, please try again later.", failure.getMessage());
+        assertEquals(8, purchaseIntake.getBacklog(PurchaseLane.PRIORITY));
+    }
+
+    @Test
+    public void LowerPriorityLanesAreShedBeforeQueuesAreFull() {
+        purchaseIntake = new PurchaseIntakeImpl(ticketService, 1, 8);
+        for (int i = 0; i < 8; i++) {
+            purchaseIntake.submit(PurchaseLane.PRIORITY, 100L, adultRequest);
+        }
+        for (int i = 0; i < 4; i++) {
+            purchaseIntake.submit(PurchaseLane.REGULAR, 100L, adultRequest);
+        }
+
+        // 12 of 24 waiting: partner purchases are shed, regular ones still queue.
+        assertTrue(purchaseIntake.submit(PurchaseLane.PARTNER, 100L, adultRequest).isCompletedExceptionally());
+        assertFalse(purchaseIntake.submit(PurchaseLane.REGULAR, 100L, adultRequest).isDone());
+        assertEquals(0, purchaseIntake.getBacklog(PurchaseLane.PARTNER));
+    }
+
+    @Test
+    public void WorkersTakeFromLanesByWeight() throws Exception {
+        purchaseIntake = new PurchaseIntakeImpl(ticketService, 1, 64);
+        List<Long> purchaseOrder = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> purchaseOrder.add(invocation.getArgument(0)))
+                .when(ticketService).purchaseTickets(anyLong(), any(TicketTypeRequest[].class));
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(purchaseIntake.submit(PurchaseLane.PARTNER, 3L, adultRequest));
+            results.add(purchaseIntake.submit(PurchaseLane.REGULAR, 2L, adultRequest));
+            results.add(purchaseIntake.submit(PurchaseLane.PRIORITY, 1L, adultRequest));
+        }
+        purchaseIntake.start();
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        List<Long> firstRound = purchaseOrder.subList(0, 10);
+        assertEquals(6, Collections.frequency(firstRound, 1L));
+        assertEquals(3, Collections.frequency(firstRound, 2L));
+        assertEquals(1, Collections.frequency(firstRound, 3L));
+    }
+
+    @Test
+    public void PurchaseWaitingLongerThanMaxQueueDelayIsNotStarted() throws Exception {
+        purchaseIntake = new PurchaseIntakeImpl(ticketService, 1, 8, Duration.ofMillis(10));
+        CompletableFuture<Void> result = purchaseIntake.submit(PurchaseLane.REGULAR, 100L, adultRequest);
+        Thread.sleep(50);
+        purchaseIntake.start();
+
+        assertInstanceOf(PurchaseRejectedException.class, failureOf(result));
+        verify(ticketService, never()).purchaseTickets(anyLong(), any(TicketTypeRequest[].class));
+    }
+
+}
@@ -0,0 +1,148 @@
+package uk.gov.dwp.uc.pairtest.limits;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountPurchaseLimiterTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    AtomicLong now = new AtomicLong(1_000 * HOUR);
+
+    AccountPurchaseLimiter accountPurchaseLimiter = new AccountPurchaseLimiterImpl(
+            100, 1000, Duration.ofHours(24), 24, 1000, now::get);
+
+
+    @Test
+    public void CanPurchaseUpToTicketLimitWithinWindow() {
+        for (int i = 0; i < 4; i++) {
+            accountPurchaseLimiter.acquire(100L, 25, 100);
+        }
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> {
+            accountPurchaseLimiter.acquire(100L, 1, 25);
+        });
+        assertTrue(exception.getMessage().contains(
+                "Account 100 cannot purchase 1 more tickets, the limit is 100 tickets per 24 hours."));
+    }
+
+    @Test
+    public void CanNotSpendMoreThanSpendLimitWithinWindow() {
+        accountPurchaseLimiter.acquire(101L, 25, 625);
+        accountPurchaseLimiter.acquire(101L, 15, 375);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> {
+            accountPurchaseLimiter.acquire(101L, 1, 15);
+        });
+        assertTrue(exception.getMessage().contains(
+                "Account 101 cannot spend 15 more, the limit is 1,000 per 24 hours."));
+    }
+
+    @Test
+    public void LimitsAreTrackedSeparatelyPerAccount() {
+        accountPurchaseLimiter.acquire(102L, 25, 1000);
+        assertDoesNotThrow(() -> accountPurchaseLimiter.acquire(103L, 25, 1000));
+    }
+
+    @Test
+    public void PurchasesRollOffOnceOutsideWindow() {
+        accountPurchaseLimiter.acquire(104L, 50, 500);
+        now.addAndGet(12 * HOUR);
+        accountPurchaseLimiter.acquire(104L, 50, 500);
+        assertThrows(InvalidPurchaseException.class, () -> accountPurchaseLimiter.acquire(104L, 1, 1));
+
+        now.addAndGet(12 * HOUR);
+        assertDoesNotThrow(() -> accountPurchaseLimiter.acquire(104L, 50, 500));
+        assertThrows(InvalidPurchaseException.class, () -> accountPurchaseLimiter.acquire(104L, 1, 1));
+    }
+
+    @Test
+    public void ReleasedPurchaseNoLongerCountsTowardsLimit() {
+        accountPurchaseLimiter.acquire(105L, 100, 1000);
+        accountPurchaseLimiter.release(105L, 100, 1000);
+        assertDoesNotThrow(() -> accountPurchaseLimiter.acquire(105L, 100, 1000));
+    }
+
+    @Test
+    public void AccountIdsThatAreNotPositiveAreRejected() {
+        for (long accountId : new long[]{0L, -1L}) {
+            Exception exception = assertThrows(InvalidPurchaseException.class, () ->
+                    accountPurchaseLimiter.acquire(accountId, 1, 25));
+            assertEquals("Account id " + accountId + " is invalid.", exception.getMessage());
+            assertDoesNotThrow(() -> accountPurchaseLimiter.release(accountId, 1, 25));
+        }
+    }
+
+    @Test
+    public void RejectedPurchaseDoesNotCountTowardsLimit() {
+        assertThrows(InvalidPurchaseException.class, () -> accountPurchaseLimiter.acquire(106L, 101, 25));
+        assertDoesNotThrow(() -> accountPurchaseLimiter.acquire(106L, 100, 1000));
+    }
+
+    @Test
+    public void TableEvictsIdleAccountsOnceFull() {
+        RollingCounterTable table = new RollingCounterTable(24, 1000);
+        for (long accountId = 1; accountId <= 1000; accountId++) {
+            table.tryAdd(accountId, 0, 1, 25, 100, 1000);
+        }
+        for (long accountId = 1001; accountId <= 5000; accountId++) {
+            table.tryAdd(accountId, 24, 1, 25, 100, 1000);
+        }
+        assertEquals(1000, table.size());
+        assertEquals(2048, table.capacity());
+    }
+
+    @Test
+    public void TableKeepsCountsForAccountsThatSurviveEviction() {
+        RollingCounterTable table = new RollingCounterTable(24, 100);
+        for (long accountId = 1; accountId <= 100; accountId++) {
+            table.tryAdd(accountId, accountId == 7 ? 30 : 0, 1, 25, 100, 1000);
+        }
+        table.tryAdd(7, 30, 98, 25, 100, 1000);
+        for (long accountId = 101; accountId <= 198; accountId++) {
+            table.tryAdd(accountId, 30, 1, 25, 100, 1000);
+        }
+        assertEquals(RollingCounterTable.TICKET_LIMIT_EXCEEDED, table.tryAdd(7, 30, 2, 25, 100, 1000));
+        assertEquals(RollingCounterTable.ACCEPTED, table.tryAdd(7, 30, 1, 25, 100, 1000));
+    }
+
+    @Test
+    public void TableNeverEvictsAccountsWithUsageInWindow() {
+        RollingCounterTable table = new RollingCounterTable(24, 100);
+        for (long accountId = 1; accountId <= 100; accountId++) {
+            table.tryAdd(accountId, 0, accountId == 7 ? 100 : 1, 25, 100, 1000);
+        }
+        for (long accountId = 101; accountId <= 1100; accountId++) {
+            assertEquals(RollingCounterTable.TABLE_FULL, table.tryAdd(accountId, 5, 1, 25, 100, 1000));
+        }
+        assertEquals(100, table.size());
+        assertEquals(RollingCounterTable.TICKET_LIMIT_EXCEEDED, table.tryAdd(7, 5, 1, 25, 100, 1000));
+    }
+
+    @Test
+    public void ActiveAccountUsageSurvivesPressureFromNewAccounts() {
+        AccountPurchaseLimiter smallLimiter = new AccountPurchaseLimiterImpl(
+                100, 1000, Duration.ofHours(24), 24, 64, now::get);
+        smallLimiter.acquire(1L, 100, 100);
+        int rejected = 0;
+        for (long accountId = 2; accountId <= 2000; accountId++) {
+            try {
+                smallLimiter.acquire(accountId, 1, 1);
+            } catch (PurchaseRejectedException e) {
+                rejected++;
+            }
+        }
+        assertTrue(rejected > 0);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> smallLimiter.acquire(1L, 1, 1));
+        assertTrue(exception.getMessage().contains(
+                "Account 1 cannot purchase 1 more tickets, the limit is 100 tickets per 24 hours."));
+    }
+
+}
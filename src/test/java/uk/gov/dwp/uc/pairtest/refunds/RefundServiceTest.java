@@ -0,0 +1,57 @@
+package uk.gov.dwp.uc.pairtest.refunds;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.dwp.uc.pairtest.exception.GatewayTimeoutException;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class RefundServiceTest {
+
+    @Mock
+    AccountPurchaseLimiter accountPurchaseLimiter;
+
+
+    private RefundServiceImpl createRefundService() {
+        return new RefundServiceImpl(accountPurchaseLimiter, () -> 1_000L);
+    }
+
+
+    @Test
+    public void RefundRequestsAreDrainedOldestFirst() {
+        RefundServiceImpl refundService = createRefundService();
+        refundService.requestRefund(100L, 1, 25, new GatewayTimeoutException("Payment gateway did not answer."));
+        refundService.requestRefund(101L, 2, 40, new IllegalStateException("Seat booking failed."));
+
+        List<RefundRequest> refundRequests = refundService.drainRefundRequests();
+        assertEquals(List.of(
+                new RefundRequest(100L, 1, 25, "Payment gateway did not answer.", 1_000L),
+                new RefundRequest(101L, 2, 40, "Seat booking failed.", 1_000L)), refundRequests);
+        assertTrue(refundService.drainRefundRequests().isEmpty());
+        verify(accountPurchaseLimiter, never()).release(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void SettlingRefundGivesPurchaseBackToAccountLimits() {
+        RefundServiceImpl refundService = createRefundService();
+        refundService.requestRefund(102L, 3, 65, new GatewayTimeoutException("Payment gateway did not answer."));
+
+        for (RefundRequest refundRequest : refundService.drainRefundRequests()) {
+            refundService.settleRefund(refundRequest);
+        }
+        verify(accountPurchaseLimiter, times(1)).release(102L, 3, 65);
+    }
+
+}
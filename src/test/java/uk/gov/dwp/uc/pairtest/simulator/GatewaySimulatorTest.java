@@ -0,0 +1,246 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.GatewayException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayTimeoutException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GatewaySimulatorTest {
+
+    private static final long MILLIS = Duration.ofMillis(1).toNanos();
+
+    List<Long> sleeps = new ArrayList<>();
+    AtomicLong now = new AtomicLong();
+
+
+    @Test
+    public void FixedLatencyIsWaitedOutOnEveryCall() {
+        GatewaySimulator gatewaySimulator = simulator(
+                GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ofMillis(40)), 1));
+        for (int i = 0; i < 3; i++) {
+            gatewaySimulator.call();
+        }
+        assertEquals(List.of(40 * MILLIS, 40 * MILLIS, 40 * MILLIS), sleeps);
+        assertEquals(3, gatewaySimulator.getCalls());
+    }
+
+    @Test
+    public void RunsWithTheSameSeedAreReproducible() {
+        GatewaySimulatorConfig config = GatewaySimulatorConfig.of(
+                LatencyDistribution.logNormal(Duration.ofMillis(50), 0.5), 42).withErrorRate(0.2);
+        GatewaySimulatorConfig otherSeed = GatewaySimulatorConfig.of(
+                LatencyDistribution.logNormal(Duration.ofMillis(50), 0.5), 43).withErrorRate(0.2);
+
+        String first = run(config);
+        assertEquals(first, run(config));
+        assertNotEquals(first, run(otherSeed));
+    }
+
+    @Test
+    public void CallsFailAtTheErrorRate() {
+        GatewaySimulator gatewaySimulator = simulator(
+                GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ZERO), 7).withErrorRate(0.1));
+        int failures = 0;
+        for (int i = 0; i < 10_000; i++) {
+            try {
+                gatewaySimulator.call();
+            } catch (GatewayException e) {
+                failures++;
+            }
+        }
+        assertTrue(failures > 900 && failures < 1100, "Failures were " + failures);
+        assertEquals(failures, gatewaySimulator.getErrors());
+    }
+
+    @Test
+    public void CallsTimingOutWaitForTheTimeout() {
+        GatewaySimulator gatewaySimulator = simulator(GatewaySimulatorConfig.of(
+                LatencyDistribution.fixed(Duration.ofMillis(10)), 1).withTimeouts(1, Duration.ofSeconds(2)));
+        Exception exception = assertThrows(GatewayTimeoutException.class, gatewaySimulator::call);
+        assertTrue(exception.getMessage().contains("Gateway did not answer within 2,000 ms."));
+        assertEquals(List.of(2_000 * MILLIS), sleeps);
+    }
+
+    @Test
+    public void CallsSlowerThanTheTimeoutTimeOut() {
+        GatewaySimulator gatewaySimulator = simulator(GatewaySimulatorConfig.of(
+                LatencyDistribution.fixed(Duration.ofSeconds(5)), 1).withTimeouts(0, Duration.ofSeconds(1)));
+        assertThrows(GatewayTimeoutException.class, gatewaySimulator::call);
+        assertEquals(List.of(1_000 * MILLIS), sleeps);
+        assertEquals(1, gatewaySimulator.getTimeouts());
+    }
+
+    @Test
+    public void CallsOverTheThroughputCapAreTurnedAway() {
+        GatewaySimulator gatewaySimulator = simulator(GatewaySimulatorConfig.of(
+                LatencyDistribution.fixed(Duration.ZERO), 1).withMaxCallsPerSecond(5));
+        for (int i = 0; i < 5; i++) {
+            gatewaySimulator.call();
+        }
+        Exception exception = assertThrows(GatewayUnavailableException.class, gatewaySimulator::call);
+        assertTrue(exception.getMessage().contains("Gateway is over its limit of 5 calls per second."));
+
+        now.addAndGet(200 * MILLIS);
+        assertDoesNotThrow(gatewaySimulator::call);
+        assertThrows(GatewayUnavailableException.class, gatewaySimulator::call);
+        assertEquals(6, gatewaySimulator.getCalls());
+        assertEquals(2, gatewaySimulator.getRejections());
+    }
+
+    @Test
+    public void CallsOverTheConcurrencyLimitAreTurnedAway() throws InterruptedException {
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch finishCall = new CountDownLatch(1);
+        GatewaySimulator gatewaySimulator = new GatewaySimulator("Gateway",
+                GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ZERO), 1).withMaxConcurrentCalls(1),
+                nanos -> {
+                    inCall.countDown();
+                    try {
+                        finishCall.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                now::get);
+
+        Thread caller = new Thread(gatewaySimulator::call);
+        caller.start();
+        assertTrue(inCall.await(10, TimeUnit.SECONDS));
+        Exception exception = assertThrows(GatewayUnavailableException.class, gatewaySimulator::call);
+        assertTrue(exception.getMessage().contains("Gateway is at its limit of 1 concurrent calls."));
+
+        finishCall.countDown();
+        caller.join();
+        assertDoesNotThrow(gatewaySimulator::call);
+    }
+
+    @Test
+    public void CallsTurnedAwayByTheConcurrencyLimitDoNotUseUpThroughput() throws InterruptedException {
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch finishCall = new CountDownLatch(1);
+        GatewaySimulator gatewaySimulator = new GatewaySimulator("Gateway",
+                GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ZERO), 1)
+                        .withMaxConcurrentCalls(1).withMaxCallsPerSecond(2),
+                nanos -> {
+                    inCall.countDown();
+                    try {
+                        finishCall.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                now::get);
+
+        Thread caller = new Thread(gatewaySimulator::call);
+        caller.start();
+        assertTrue(inCall.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            assertThrows(GatewayUnavailableException.class, gatewaySimulator::call);
+        }
+        finishCall.countDown();
+        caller.join();
+        assertDoesNotThrow(gatewaySimulator::call);
+        assertEquals(2, gatewaySimulator.getCalls());
+        assertEquals(5, gatewaySimulator.getRejections());
+    }
+
+    @Test
+    public void InterruptedCallThrowsAndLeavesTheThreadInterrupted() {
+        GatewaySimulator gatewaySimulator = new GatewaySimulator("Gateway",
+                GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ofSeconds(1)), 1));
+        Thread.currentThread().interrupt();
+        try {
+            Exception exception = assertThrows(GatewayTimeoutException.class, gatewaySimulator::call);
+            assertTrue(exception.getMessage().contains("Gateway call was interrupted before it was answered."));
+            assertTrue(Thread.currentThread().isInterrupted());
+            assertEquals(1, gatewaySimulator.getTimeouts());
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void LogNormalLatencyCentresOnTheMedian() {
+        LatencyDistribution latency = LatencyDistribution.logNormal(Duration.ofMillis(50), 0.5);
+        SplittableRandom random = new SplittableRandom(3);
+        long[] samples = new long[10_001];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = latency.sampleNanos(random);
+        }
+        Arrays.sort(samples);
+        long median = samples[samples.length / 2];
+        assertTrue(median > 48 * MILLIS && median < 52 * MILLIS, "Median was " + median);
+    }
+
+    @Test
+    public void ReplayedLatencyFollowsTheRecordedHistogram() throws Exception {
+        String histogram = String.join("\n",
+                "# upper bound in microseconds, count",
+                "10000, 90",
+                "20000, 0",
+                "100000, 10");
+        LatencyDistribution latency = LatencyDistribution.replay(
+                new ByteArrayInputStream(histogram.getBytes(StandardCharsets.UTF_8)));
+        SplittableRandom random = new SplittableRandom(5);
+        int fast = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long sample = latency.sampleNanos(random);
+            assertTrue(sample >= 0 && sample <= 100 * MILLIS);
+            assertTrue(sample <= 10 * MILLIS || sample >= 20 * MILLIS, "Sampled from an empty bucket");
+            if (sample <= 10 * MILLIS) {
+                fast++;
+            }
+        }
+        assertTrue(fast > 8_800 && fast < 9_200, "Fast calls were " + fast);
+    }
+
+    @Test
+    public void ConfigRatesMustBeValid() {
+        GatewaySimulatorConfig config = GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ZERO), 1);
+        assertThrows(IllegalArgumentException.class, () -> config.withErrorRate(-0.1));
+        assertThrows(IllegalArgumentException.class, () ->
+                config.withErrorRate(0.6).withTimeouts(0.6, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> config.withMaxCallsPerSecond(0));
+    }
+
+
+    private GatewaySimulator simulator(GatewaySimulatorConfig config) {
+        return new GatewaySimulator("Gateway", config, sleeps::add, now::get);
+    }
+
+
+    private String run(GatewaySimulatorConfig config) {
+        sleeps.clear();
+        StringBuilder outcomes = new StringBuilder();
+        GatewaySimulator gatewaySimulator = simulator(config);
+        for (int i = 0; i < 100; i++) {
+            try {
+                gatewaySimulator.call();
+                outcomes.append('.');
+            } catch (GatewayException e) {
+                outcomes.append('x');
+            }
+        }
+        return outcomes + " " + sleeps;
+    }
+
+}
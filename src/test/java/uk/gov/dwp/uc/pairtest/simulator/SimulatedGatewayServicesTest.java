@@ -0,0 +1,70 @@
+package uk.gov.dwp.uc.pairtest.simulator;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.GatewayException;
+import uk.gov.dwp.uc.pairtest.helpers.TicketTypeRequestHelperImpl;
+import uk.gov.dwp.uc.pairtest.holds.SeatHoldServiceImpl;
+import uk.gov.dwp.uc.pairtest.limits.AccountPurchaseLimiterImpl;
+import uk.gov.dwp.uc.pairtest.refunds.RefundServiceImpl;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulatedGatewayServicesTest {
+
+    SimulatedTicketPaymentService ticketPaymentService = new SimulatedTicketPaymentService(
+            GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ZERO), 11).withErrorRate(0.5));
+
+    SimulatedSeatReservationService seatReservationService = new SimulatedSeatReservationService(
+            GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ZERO), 12));
+
+    SeatHoldServiceImpl seatHoldService = new SeatHoldServiceImpl(1_000);
+
+    AccountPurchaseLimiterImpl accountPurchaseLimiter =
+            new AccountPurchaseLimiterImpl(100, 1000, Duration.ofHours(24), 12, 1000, System::currentTimeMillis);
+
+    TicketService ticketService = new TicketServiceImpl(
+            ticketPaymentService,
+            seatReservationService,
+            type -> 25,
+            new TicketTypeRequestHelperImpl(TicketTypeRegistry.builtIn()),
+            accountPurchaseLimiter,
+            seatHoldService,
+            new RefundServiceImpl(accountPurchaseLimiter));
+
+
+    @Test
+    public void PurchasesGoThroughOrFailLikeTheGateways() {
+        int failures = 0;
+        for (long accountId = 1; accountId <= 40; accountId++) {
+            try {
+                ticketService.purchaseTickets(accountId, new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1));
+            } catch (GatewayException e) {
+                assertTrue(e.getMessage().contains("Payment gateway failed the call."));
+                failures++;
+            }
+        }
+        assertTrue(failures > 0 && failures < 40);
+        assertEquals(40, ticketPaymentService.getGatewaySimulator().getCalls());
+        assertEquals(40 - failures, seatReservationService.getGatewaySimulator().getCalls());
+        assertEquals(1_000 - (40 - failures), seatHoldService.getAvailableSeats());
+    }
+
+    @Test
+    public void SeatReservationFailsLikeTheSeatBookingService() {
+        SimulatedSeatReservationService failingService = new SimulatedSeatReservationService(
+                GatewaySimulatorConfig.of(LatencyDistribution.fixed(Duration.ZERO), 1).withErrorRate(1));
+        Exception exception = assertThrows(GatewayException.class, () -> failingService.reserveSeat(1L, 2));
+        assertTrue(exception.getMessage().contains("Seat booking service failed the call."));
+        assertDoesNotThrow(() -> seatReservationService.reserveSeat(1L, 2));
+    }
+
+}
@@ -0,0 +1,35 @@
+package uk.gov.dwp.uc.pairtest.startup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.dwp.uc.pairtest.TicketPriceService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TicketServiceWarmUpTest {
+
+    @Mock
+    TicketPriceService ticketPriceService;
+
+    @Test
+    public void WarmUpRunsPurchasesAndThenReportsReady() {
+        doReturn(25).when(ticketPriceService).getTicketPrice(any(TicketTypeRequest.Type.class));
+        TicketServiceWarmUp warmUp = new TicketServiceWarmUp(ticketPriceService, TicketTypeRegistry.builtIn(), 1_000);
+        assertFalse(warmUp.isReady());
+
+        warmUp.run();
+        assertTrue(warmUp.isReady());
+        verify(ticketPriceService, atLeastOnce()).getTicketPrice(TicketTypeRequest.Type.CHILD);
+    }
+
+}
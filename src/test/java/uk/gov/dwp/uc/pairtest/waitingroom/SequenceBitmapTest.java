@@ -0,0 +1,37 @@
+package uk.gov.dwp.uc.pairtest.waitingroom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SequenceBitmapTest {
+
+    SequenceBitmap sequenceBitmap = new SequenceBitmap();
+
+
+    @Test
+    public void SequenceCanOnlyBeAddedOnceUntilRemoved() {
+        assertTrue(sequenceBitmap.add(1));
+        assertFalse(sequenceBitmap.add(1));
+        assertTrue(sequenceBitmap.contains(1));
+        assertFalse(sequenceBitmap.contains(2));
+
+        sequenceBitmap.remove(1);
+        assertFalse(sequenceBitmap.contains(1));
+        assertTrue(sequenceBitmap.add(1));
+    }
+
+    @Test
+    public void SequencesFarApartAreKeptInSeparatePages() {
+        long[] sequences = {63, 65_535, 65_537, 10_000_000, 10_000_064};
+        for (long sequence : sequences) {
+            assertTrue(sequenceBitmap.add(sequence));
+        }
+        for (long sequence : sequences) {
+            assertTrue(sequenceBitmap.contains(sequence));
+            assertFalse(sequenceBitmap.contains(sequence + 1));
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+package uk.gov.dwp.uc.pairtest.waitingroom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class WaitingRoomTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Mock
+    TicketService ticketService;
+
+    AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    WaitingRoomImpl waitingRoom;
+
+    List<String> tokens = new ArrayList<>();
+
+    TicketTypeRequest adultRequest = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+
+
+    private void createWaitingRoom(double admitsPerSecond) {
+        waitingRoom = new WaitingRoomImpl(ticketService, admitsPerSecond, 1, 1_000, now::get);
+    }
+
+
+    /**
+     * Joins the given number of purchasers, each with an account id matching their place in the queue.
+     */
+    private void joinQueue(int purchasers) {
+        for (int i = 0; i < purchasers; i++) {
+            tokens.add(waitingRoom.join((long) tokens.size() + 1));
+        }
+    }
+
+
+    private String token(int place) {
+        return tokens.get(place - 1);
+    }
+
+
+    @Test
+    public void TokensAreHandedOutInOrder() {
+        createWaitingRoom(10);
+        joinQueue(3);
+        assertEquals(0, waitingRoom.status(token(1)).position());
+        assertEquals(1, waitingRoom.status(token(2)).position());
+        assertEquals(2, waitingRoom.status(token(3)).position());
+    }
+
+    @Test
+    public void PurchasersAreAdmittedAtTheAdmissionRate() {
+        createWaitingRoom(10);
+        joinQueue(30);
+
+        assertEquals(new QueueStatus(token(15), 14, false, 2), waitingRoom.status(token(15)));
+        now.addAndGet(SECOND);
+        assertTrue(waitingRoom.status(token(10)).admitted());
+        assertEquals(new QueueStatus(token(15), 4, false, 1), waitingRoom.status(token(15)));
+        now.addAndGet(SECOND / 2);
+        assertEquals(new QueueStatus(token(15), 0, true, 0), waitingRoom.status(token(15)));
+        assertEquals(new QueueStatus(token(16), 0, false, 1), waitingRoom.status(token(16)));
+    }
+
+    @Test
+    public void IdleWaitingRoomDoesNotBankMoreThanASecondOfAdmissions() {
+        createWaitingRoom(10);
+        joinQueue(1);
+        now.addAndGet(60 * SECOND);
+        waitingRoom.status(token(1));
+
+        joinQueue(30);
+        assertTrue(waitingRoom.status(token(11)).admitted());
+        assertFalse(waitingRoom.status(token(12)).admitted());
+    }
+
+    @Test
+    public void CanNotJoinWithInvalidAccountId() {
+        createWaitingRoom(10);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> waitingRoom.join(0L));
+        assertEquals("Account id 0 is invalid.", exception.getMessage());
+    }
+
+    @Test
+    public void CanNotPollTokenThatWasNeverHandedOut() {
+        createWaitingRoom(10);
+        joinQueue(1);
+        char[] signature = token(1).toCharArray();
+        signature[30] = signature[30] == 'A' ? 'B' : 'A';
+        String forged = new String(signature);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () -> waitingRoom.status(forged));
+        assertEquals("Queue token is invalid.", exception.getMessage());
+        assertThrows(InvalidPurchaseException.class, () -> waitingRoom.status("2"));
+        assertThrows(InvalidPurchaseException.class, () -> waitingRoom.status(null));
+    }
+
+    @Test
+    public void CanNotUseTokenFromAnotherWaitingRoom() {
+        createWaitingRoom(10);
+        String otherToken = new WaitingRoomImpl(ticketService, 10, 1, 1_000, now::get).join(1L);
+        joinQueue(1);
+        now.addAndGet(SECOND);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () ->
+                waitingRoom.purchaseTickets(otherToken, 1L, adultRequest));
+        assertEquals("Queue token is invalid.", exception.getMessage());
+        verify(ticketService, never()).purchaseTickets(anyLong(), any(TicketTypeRequest[].class));
+    }
+
+    @Test
+    public void PurchaserCanNotPurchaseBeforeBeingAdmitted() {
+        createWaitingRoom(10);
+        joinQueue(20);
+        Exception exception = assertThrows(PurchaseRejectedException.class, () ->
+                waitingRoom.purchaseTickets(token(20), 20L, adultRequest));
+        assertEquals("Queue token has not been admitted yet, 19 purchasers are ahead.", exception.getMessage());
+        verify(ticketService, never()).purchaseTickets(anyLong(), any(TicketTypeRequest[].class));
+    }
+
+    @Test
+    public void AdmittedPurchaserPurchasesFromTicketService() {
+        createWaitingRoom(10);
+        joinQueue(1);
+        now.addAndGet(SECOND);
+        waitingRoom.purchaseTickets(token(1), 1L, adultRequest);
+        verify(ticketService).purchaseTickets(1L, adultRequest);
+    }
+
+    @Test
+    public void PurchaserCanNotUseTokenIssuedToAnotherAccount() {
+        createWaitingRoom(10);
+        joinQueue(1);
+        now.addAndGet(SECOND);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () ->
+                waitingRoom.purchaseTickets(token(1), 2L, adultRequest));
+        assertEquals("Queue token was not issued to account 2.", exception.getMessage());
+        verify(ticketService, never()).purchaseTickets(anyLong(), any(TicketTypeRequest[].class));
+    }
+
+    @Test
+    public void TokenCanNotBeReusedAfterSuccessfulPurchase() {
+        createWaitingRoom(10);
+        joinQueue(1);
+        now.addAndGet(SECOND);
+        waitingRoom.purchaseTickets(token(1), 1L, adultRequest);
+        Exception exception = assertThrows(InvalidPurchaseException.class, () ->
+                waitingRoom.purchaseTickets(token(1), 1L, adultRequest));
+        assertEquals("Queue token has already been used.", exception.getMessage());
+        verify(ticketService, times(1)).purchaseTickets(1L, adultRequest);
+    }
+
+    @Test
+    public void TokenCanBeUsedAgainAfterFailedPurchase() {
+        createWaitingRoom(10);
+        joinQueue(1);
+        now.addAndGet(SECOND);
+        doThrow(IllegalStateException.class).doNothing().when(ticketService).purchaseTickets(1L, adultRequest);
+        assertThrows(IllegalStateException.class, () -> waitingRoom.purchaseTickets(token(1), 1L, adultRequest));
+        waitingRoom.purchaseTickets(token(1), 1L, adultRequest);
+        verify(ticketService, times(2)).purchaseTickets(1L, adultRequest);
+    }
+
+    @Test
+    public void AdmissionRateGrowsWhilePurchasesSucceed() {
+        createWaitingRoom(100);
+        joinQueue(1_000);
+        now.addAndGet(SECOND);
+        for (int place = 1; place <= 100; place++) {
+            waitingRoom.purchaseTickets(token(place), (long) place, adultRequest);
+        }
+        now.addAndGet(SECOND);
+        waitingRoom.status(token(1));
+        assertEquals(110, waitingRoom.getAdmitsPerSecond(), 0.001);
+    }
+
+    @Test
+    public void AdmissionRateIsCutFromWhereItIsWhenGatewayFails() {
+        createWaitingRoom(100);
+        joinQueue(1_000);
+        now.addAndGet(SECOND);
+        for (long accountId = 1; accountId <= 50; accountId++) {
+            doThrow(IllegalStateException.class).when(ticketService).purchaseTickets(accountId, adultRequest);
+        }
+        for (int place = 1; place <= 100; place++) {
+            try {
+                waitingRoom.purchaseTickets(token(place), (long) place, adultRequest);
+            } catch (IllegalStateException e) {
+                // The gateway failed.
+            }
+        }
+        now.addAndGet(SECOND);
+        waitingRoom.status(token(1));
+        // Half of the purchases failed: the rate is cut by a quarter, not to the 50 a second that went through.
+        assertEquals(75, waitingRoom.getAdmitsPerSecond(), 0.001);
+    }
+
+    @Test
+    public void FewFailuresInAQuietIntervalLeaveTheAdmissionRate() {
+        createWaitingRoom(500);
+        joinQueue(2);
+        now.addAndGet(SECOND);
+        doThrow(IllegalStateException.class).when(ticketService).purchaseTickets(1L, adultRequest);
+        assertThrows(IllegalStateException.class, () -> waitingRoom.purchaseTickets(token(1), 1L, adultRequest));
+        waitingRoom.purchaseTickets(token(2), 2L, adultRequest);
+        now.addAndGet(SECOND);
+        waitingRoom.status(token(1));
+        assertEquals(500, waitingRoom.getAdmitsPerSecond(), 0.001);
+    }
+
+}